@@ -0,0 +1,128 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.mrivanplays.icf.annotations.Command;
+import com.mrivanplays.icf.annotations.Default;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compiled annotated commands: one linked through {@link java.lang.invoke.LambdaMetafactory}, as it
+ * takes only objects, and one bound into a method handle, as it takes primitives, against parsing
+ * the same arguments by hand.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnnotatedCommandsBenchmark {
+
+  /** Whenever the arguments are valid, or the last one fails to parse. */
+  @Param({"true", "false"})
+  public boolean valid;
+
+  private LinkedHandler linkedHandler;
+  private PrimitiveHandler methodHandleHandler;
+  private PrimitiveHandler directHandler;
+  private BaseCommand linked;
+  private BaseCommand methodHandle;
+  private CommandSender sender;
+  private String[] linkedArgs;
+  private String[] primitiveArgs;
+
+  @Setup
+  public void setup() {
+    Stubs.installServer();
+    linkedHandler = new LinkedHandler();
+    methodHandleHandler = new PrimitiveHandler();
+    directHandler = new PrimitiveHandler();
+    linked = AnnotatedCommands.compile(linkedHandler, Collections.emptyMap());
+    methodHandle = AnnotatedCommands.compile(methodHandleHandler, Collections.emptyMap());
+    sender = Stubs.console(Collections.emptySet());
+    linkedArgs = valid ? new String[] {"Notch", "diamond"} : new String[] {"Notch"};
+    primitiveArgs = new String[] {"Notch", "64", valid ? "12.5" : "twelve"};
+  }
+
+  @Benchmark
+  public long linked() {
+    linked.execute(sender, "give", new CommandArguments(linkedArgs));
+    return linkedHandler.sink;
+  }
+
+  @Benchmark
+  public long methodHandle() {
+    methodHandle.execute(sender, "give", new CommandArguments(primitiveArgs));
+    return methodHandleHandler.sink;
+  }
+
+  /** What the primitive handler method costs when the arguments are parsed by hand. */
+  @Benchmark
+  public long direct() {
+    CommandArguments arguments = new CommandArguments(primitiveArgs);
+    String target = arguments.nextUnsafe();
+    IntArgumentOptional amount = arguments.nextIntPrimitive();
+    DoubleArgumentOptional price = arguments.nextDoublePrimitive();
+    if (target != null && amount.isPresent() && price.isPresent()) {
+      directHandler.give(sender, target, amount.getAsInt(), price.getAsDouble());
+    }
+    return directHandler.sink;
+  }
+
+  /** Linked through {@link java.lang.invoke.LambdaMetafactory}. */
+  @Command("give")
+  public static class LinkedHandler {
+
+    // written to, so the argument handling can't be optimized away
+    private long sink;
+
+    @Default
+    public void give(CommandSender sender, String target, String item) {
+      sink += target.length() + item.length();
+    }
+  }
+
+  /** Bound into a method handle, which parses the primitives without boxing them. */
+  @Command("give")
+  public static class PrimitiveHandler {
+
+    private long sink;
+
+    @Default
+    public void give(CommandSender sender, String target, int amount, double price) {
+      sink += target.length() + amount + (long) price;
+    }
+  }
+}
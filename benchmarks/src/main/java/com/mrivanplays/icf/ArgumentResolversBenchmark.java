@@ -0,0 +1,150 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every built-in {@link ArgumentResolvers} entry, resolved through {@link
+ * CommandArguments#next(ArgumentResolver)} on valid and on invalid input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArgumentResolversBenchmark {
+
+  @Param({
+    "INTEGER",
+    "STRING",
+    "DOUBLE",
+    "FLOAT",
+    "PLAYER",
+    "PLAYER_EXACT",
+    "PLAYER_OFFLINE",
+    "INDEXED_PLAYER",
+    "INDEXED_PLAYER_EXACT",
+    "GAME_MODE",
+    "COMPLEX_GAME_MODE"
+  })
+  public String resolverName;
+
+  @Param({"true", "false"})
+  public boolean valid;
+
+  /** How many players the stub server has online, which is what the player lookups scan. */
+  @Param({"100"})
+  public int onlinePlayers;
+
+  private ArgumentResolver<?> resolver;
+  private String[] input;
+
+  @Setup
+  @SuppressWarnings("deprecation")
+  public void setup() {
+    Stubs.installServer();
+    for (int i = 0; i < onlinePlayers; i++) {
+      Stubs.addOnlinePlayer(Stubs.player("Player" + i, Collections.emptySet()));
+    }
+    String validInput;
+    String invalidInput;
+    switch (resolverName) {
+      case "INTEGER":
+        resolver = ArgumentResolvers.INTEGER;
+        validInput = "1234";
+        invalidInput = "12three4";
+        break;
+      case "STRING":
+        resolver = ArgumentResolvers.STRING;
+        validInput = "hello";
+        invalidInput = "";
+        break;
+      case "DOUBLE":
+        resolver = ArgumentResolvers.DOUBLE;
+        validInput = "12.5";
+        invalidInput = "12.5.5";
+        break;
+      case "FLOAT":
+        resolver = ArgumentResolvers.FLOAT;
+        validInput = "12.5";
+        invalidInput = "12.5.5";
+        break;
+      case "PLAYER":
+        resolver = ArgumentResolvers.PLAYER;
+        // a prefix, so the lookup needs to scan all the online players
+        validInput = "Player";
+        invalidInput = "Nobody";
+        break;
+      case "PLAYER_EXACT":
+        resolver = ArgumentResolvers.PLAYER_EXACT;
+        validInput = "Player5";
+        invalidInput = "Nobody";
+        break;
+      case "INDEXED_PLAYER":
+        resolver = new PlayerIndex().resolver();
+        validInput = "Player42";
+        invalidInput = "Nobody";
+        break;
+      case "INDEXED_PLAYER_EXACT":
+        resolver = new PlayerIndex().exactResolver();
+        validInput = "Player5";
+        invalidInput = "Nobody";
+        break;
+      case "PLAYER_OFFLINE":
+        resolver = ArgumentResolvers.PLAYER_OFFLINE;
+        validInput = "Player5";
+        invalidInput = "Nobody";
+        break;
+      case "GAME_MODE":
+        resolver = ArgumentResolvers.GAME_MODE;
+        validInput = "creative";
+        invalidInput = "godmode";
+        break;
+      case "COMPLEX_GAME_MODE":
+        resolver = ArgumentResolvers.COMPLEX_GAME_MODE;
+        validInput = "1";
+        invalidInput = "godmode";
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown resolver " + resolverName);
+    }
+    input = new String[] {valid ? validInput : invalidInput};
+  }
+
+  @Benchmark
+  public ArgumentOptional<?> next() {
+    return new CommandArguments(input).next(resolver);
+  }
+}
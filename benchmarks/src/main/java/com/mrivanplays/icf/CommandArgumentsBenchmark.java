@@ -0,0 +1,160 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Consumption of {@link CommandArguments}, the way commands do it, at various argument counts. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandArgumentsBenchmark {
+
+  @Param({"1", "8", "64", "256"})
+  public int argCount;
+
+  private String[] words;
+  private String[] numbers;
+  private ArgumentSchema schema;
+  private ArgumentSchema.Result result;
+  private ArgumentTokenizer tokenizer;
+  private String numberList;
+  private ListResolver<int[]> intList;
+
+  @Setup
+  public void setup() {
+    words = new String[argCount];
+    numbers = new String[argCount];
+    for (int i = 0; i < argCount; i++) {
+      words[i] = "word" + i;
+      numbers[i] = Integer.toString(i * 31);
+    }
+    ArgumentSchema.Builder builder = ArgumentSchema.builder();
+    for (int i = 0; i < argCount; i++) {
+      builder.requiredInt("number" + i);
+    }
+    schema = builder.build();
+    result = schema.newResult();
+    tokenizer = ArgumentTokenizer.builder().flag('s', "silent").valueFlag('d', "duration").build();
+    numberList = String.join(",", numbers);
+    intList = ListResolver.ints().maxSize(argCount).build();
+  }
+
+  @Benchmark
+  public void nextUnsafe(Blackhole blackhole) {
+    CommandArguments args = new CommandArguments(words);
+    String arg;
+    while ((arg = args.nextUnsafe()) != null) {
+      blackhole.consume(arg);
+    }
+  }
+
+  @Benchmark
+  public void nextString(Blackhole blackhole) {
+    CommandArguments args = new CommandArguments(words);
+    while (args.size() > 0) {
+      args.nextString().ifPresent(blackhole::consume).orElse(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void nextInt(Blackhole blackhole) {
+    CommandArguments args = new CommandArguments(numbers);
+    while (args.size() > 0) {
+      args.nextInt().ifPresent(blackhole::consume).orElse(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void nextIntPrimitive(Blackhole blackhole) {
+    CommandArguments args = new CommandArguments(numbers);
+    while (args.size() > 0) {
+      args.nextIntPrimitive().ifPresent(blackhole::consume).orElse(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void schema(Blackhole blackhole) {
+    schema.parse(new CommandArguments(numbers), result);
+    for (int i = 0; i < argCount; i++) {
+      blackhole.consume(result.getInt(i));
+    }
+  }
+
+  @Benchmark
+  public void nextResolver(Blackhole blackhole) {
+    CommandArguments args = new CommandArguments(numbers);
+    while (args.size() > 0) {
+      args.next(ArgumentResolvers.INTEGER).ifPresent(blackhole::consume).orElse(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public int[] intList() {
+    return intList.resolve(numberList);
+  }
+
+  @Benchmark
+  public int[] intListSplit() {
+    // what commands do without list resolvers
+    String[] elements = numberList.split(",");
+    int[] values = new int[elements.length];
+    for (int i = 0; i < elements.length; i++) {
+      values[i] = Integer.parseInt(elements[i]);
+    }
+    return values;
+  }
+
+  @Benchmark
+  public String joinArgumentsSpace() {
+    return new CommandArguments(words).joinArgumentsSpace(0);
+  }
+
+  @Benchmark
+  public ArgumentTokenizer.Tokens tokenize() {
+    return tokenizer.tokenize(words);
+  }
+
+  @Benchmark
+  public void copyAndConsume(Blackhole blackhole) {
+    CommandArguments args = new CommandArguments(words);
+    CommandArguments copy = args.copy();
+    while (copy.size() > 0) {
+      blackhole.consume(copy.nextUnsafe());
+    }
+    blackhole.consume(args.nextUnsafe());
+  }
+}
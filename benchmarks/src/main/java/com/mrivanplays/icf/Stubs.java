@@ -0,0 +1,258 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Local stand-ins for the server objects the framework talks to. They are dynamic proxies, so they
+ * keep working whatever the api version is; every method which isn't handled here returns the
+ * default value of its return type.
+ */
+public final class Stubs {
+
+  private static final Map<String, Player> ONLINE_PLAYERS = new ConcurrentHashMap<>();
+  private static final Logger LOGGER = Logger.getLogger("ICF-Benchmarks");
+  private static Server server;
+
+  private Stubs() {}
+
+  /**
+   * Installs the stub server, if not already installed. The server knows only about the players
+   * added with {@link #addOnlinePlayer(Player)}.
+   *
+   * @return stub server
+   */
+  public static synchronized Server installServer() {
+    if (server == null) {
+      server =
+          proxy(
+              Server.class,
+              (method, args) -> {
+                switch (method.getName()) {
+                  case "getName":
+                    return "ICF-Benchmarks";
+                  case "getVersion":
+                  case "getBukkitVersion":
+                    return "benchmark";
+                  case "getLogger":
+                    return LOGGER;
+                  case "getOnlinePlayers":
+                    return ONLINE_PLAYERS.values();
+                  case "getPlayerExact":
+                    return getPlayerExact((String) args[0]);
+                  case "getPlayer":
+                    return args[0] instanceof String ? getPlayer((String) args[0]) : null;
+                  case "getOfflinePlayer":
+                    return args[0] instanceof String ? getPlayerExact((String) args[0]) : null;
+                  case "isPrimaryThread":
+                    return true;
+                  default:
+                    return null;
+                }
+              });
+      Bukkit.setServer(server);
+    }
+    return server;
+  }
+
+  /**
+   * Adds the specified player to the players the stub server treats as online.
+   *
+   * @param player the player
+   */
+  public static void addOnlinePlayer(Player player) {
+    ONLINE_PLAYERS.put(player.getName().toLowerCase(Locale.ENGLISH), player);
+  }
+
+  /**
+   * Creates a stub plugin.
+   *
+   * @param name plugin name
+   * @return stub plugin
+   */
+  public static Plugin plugin(String name) {
+    return proxy(
+        Plugin.class,
+        (method, args) -> {
+          switch (method.getName()) {
+            case "getName":
+              return name;
+            case "getLogger":
+              return LOGGER;
+            case "getServer":
+              return installServer();
+            case "isEnabled":
+              return true;
+            default:
+              return null;
+          }
+        });
+  }
+
+  /**
+   * Creates a stub console like sender, which has only the specified permissions.
+   *
+   * @param permissions permissions of the sender
+   * @return stub sender
+   */
+  public static CommandSender console(Set<String> permissions) {
+    return proxy(
+        CommandSender.class,
+        (method, args) -> {
+          switch (method.getName()) {
+            case "getName":
+              return "CONSOLE";
+            case "hasPermission":
+              return hasPermission(permissions, args[0]);
+            default:
+              return null;
+          }
+        });
+  }
+
+  /**
+   * Creates a stub player, which has only the specified permissions.
+   *
+   * @param name player name
+   * @param permissions permissions of the player
+   * @return stub player
+   */
+  public static Player player(String name, Set<String> permissions) {
+    UUID uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes());
+    return proxy(
+        Player.class,
+        (method, args) -> {
+          switch (method.getName()) {
+            case "getName":
+            case "getDisplayName":
+              return name;
+            case "getUniqueId":
+              return uuid;
+            case "isOnline":
+              return true;
+            case "hasPermission":
+              return hasPermission(permissions, args[0]);
+            default:
+              return null;
+          }
+        });
+  }
+
+  private static boolean hasPermission(Set<String> permissions, Object permission) {
+    return permission instanceof String && permissions.contains(permission);
+  }
+
+  private static Player getPlayerExact(String name) {
+    return ONLINE_PLAYERS.get(name.toLowerCase(Locale.ENGLISH));
+  }
+
+  // mirrors the lookup the server does: exact match, otherwise a scan for the closest prefix
+  private static Player getPlayer(String name) {
+    Player found = getPlayerExact(name);
+    if (found != null) {
+      return found;
+    }
+    String lowerName = name.toLowerCase(Locale.ENGLISH);
+    int delta = Integer.MAX_VALUE;
+    Collection<Player> players = ONLINE_PLAYERS.values();
+    for (Player player : players) {
+      if (player.getName().toLowerCase(Locale.ENGLISH).startsWith(lowerName)) {
+        int curDelta = Math.abs(player.getName().length() - lowerName.length());
+        if (curDelta < delta) {
+          found = player;
+          delta = curDelta;
+        }
+        if (curDelta == 0) {
+          break;
+        }
+      }
+    }
+    return found;
+  }
+
+  @FunctionalInterface
+  private interface Handler {
+
+    Object handle(Method method, Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, Handler handler) {
+    InvocationHandler invocationHandler =
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "toString":
+              return type.getSimpleName() + "Stub";
+            default:
+              Object result = handler.handle(method, args);
+              return result != null ? result : defaultValue(method.getReturnType());
+          }
+        };
+    return type.cast(
+        Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocationHandler));
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (!type.isPrimitive() || type == void.class) {
+      return null;
+    }
+    if (type == boolean.class) {
+      return false;
+    }
+    if (type == char.class) {
+      return '\0';
+    }
+    if (type == float.class) {
+      return 0F;
+    }
+    if (type == double.class) {
+      return 0D;
+    }
+    if (type == long.class) {
+      return 0L;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == short.class) {
+      return (short) 0;
+    }
+    return (byte) 0;
+  }
+}
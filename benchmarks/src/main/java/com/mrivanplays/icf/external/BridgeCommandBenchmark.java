@@ -0,0 +1,176 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf.external;
+
+import com.mrivanplays.icf.CommandArguments;
+import com.mrivanplays.icf.CommandManager;
+import com.mrivanplays.icf.CompletionIndex;
+import com.mrivanplays.icf.FailReason;
+import com.mrivanplays.icf.Stubs;
+import com.mrivanplays.icf.TabCommand;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** {@link BridgeCommand#execute} and {@link BridgeCommand#tabComplete} end to end. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BridgeCommandBenchmark {
+
+  private static final String PERMISSION = "icf.benchmark";
+
+  /** Whenever the command metrics are recorded, which shows what recording them costs. */
+  @Param({"false", "true"})
+  public boolean metrics;
+
+  private BridgeCommand command;
+  private BridgeCommand playerOnlyCommand;
+  private BridgeCommand indexedCommand;
+  private Player permitted;
+  private Player notPermitted;
+  private CommandSender console;
+  private String[] executeArgs;
+  private String[] tabCompleteArgs;
+
+  @Setup
+  public void setup() {
+    Stubs.installServer();
+    CommandManager commandManager = new CommandManager(Stubs.plugin("Benchmark"));
+    commandManager.setMetricsEnabled(metrics);
+    List<String> completions = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      completions.add("completion" + i);
+    }
+    command =
+        new BridgeCommand(
+            new BenchmarkCommand(false, completions), commandManager, "benchmark", "bench");
+    indexedCommand =
+        new BridgeCommand(
+            new BenchmarkCommand(false, CompletionIndex.of(completions)),
+            commandManager,
+            "indexed");
+    playerOnlyCommand =
+        new BridgeCommand(new BenchmarkCommand(true, completions), commandManager, "playeronly");
+    permitted = Stubs.player("Permitted", Collections.singleton(PERMISSION));
+    notPermitted = Stubs.player("NotPermitted", Collections.emptySet());
+    console = Stubs.console(Collections.singleton(PERMISSION));
+    executeArgs = new String[] {"give", "Permitted", "64", "12.5"};
+    tabCompleteArgs = new String[] {"give", "completion99"};
+  }
+
+  @Benchmark
+  public boolean execute() {
+    return command.execute(permitted, "benchmark", executeArgs);
+  }
+
+  @Benchmark
+  public boolean executeNoPermission() {
+    return command.execute(notPermitted, "benchmark", executeArgs);
+  }
+
+  @Benchmark
+  public boolean executePlayerOnlyFromConsole() {
+    return playerOnlyCommand.execute(console, "playeronly", executeArgs);
+  }
+
+  @Benchmark
+  public List<String> tabComplete() {
+    return command.tabComplete(permitted, "benchmark", tabCompleteArgs);
+  }
+
+  @Benchmark
+  public List<String> tabCompleteIndexed() {
+    return indexedCommand.tabComplete(permitted, "indexed", tabCompleteArgs);
+  }
+
+  @Benchmark
+  public List<String> tabCompleteNoPermission() {
+    return command.tabComplete(notPermitted, "benchmark", tabCompleteArgs);
+  }
+
+  private static final class BenchmarkCommand extends TabCommand {
+
+    private final Iterable<String> completions;
+    // written to, so the argument handling can't be optimized away
+    private long sink;
+
+    BenchmarkCommand(boolean playerOnly, Iterable<String> completions) {
+      this.completions = completions;
+      setPlayerOnly(playerOnly);
+      setPermission(PERMISSION);
+    }
+
+    @Override
+    public void execute(
+        @NotNull CommandSender sender, @NotNull String label, @NotNull CommandArguments args) {
+      args.nextString()
+          .ifPresent(
+              action ->
+                  args.nextString()
+                      .ifPresent(
+                          target ->
+                              args.nextIntPrimitive()
+                                  .ifPresent(
+                                      amount ->
+                                          args.nextDoublePrimitive()
+                                              .ifPresent(
+                                                  price ->
+                                                      sink +=
+                                                          action.length()
+                                                              + target.length()
+                                                              + amount
+                                                              + (long) price)
+                                              .orElse(this::fail))
+                                  .orElse(this::fail))
+                      .orElse(this::fail))
+          .orElse(this::fail);
+    }
+
+    private void fail(FailReason failReason) {
+      sink += failReason.ordinal();
+    }
+
+    @Override
+    public Iterable<String> tabComplete(
+        @NotNull CommandSender sender, @NotNull String label, @NotNull CommandArguments args) {
+      return completions;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf.external;
+
+import com.mrivanplays.icf.Stubs;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CommandSendListener#on(PlayerCommandSendEvent)} with various amounts of registered
+ * aliases. The listener removes commands from the event, so every operation needs to copy the
+ * commands first; {@link #copyOnly()} measures that copy alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandSendListenerBenchmark {
+
+  private static final String PLUGIN_NAME = "benchmark";
+
+  @Param({"10", "100", "1000"})
+  public int aliases;
+
+  /** How many distinct permissions the aliases are spread over. */
+  @Param({"10"})
+  public int permissions;
+
+  private CommandSendListener listener;
+  private Player player;
+  private Collection<String> commands;
+
+  @Setup
+  @SuppressWarnings("deprecation") // the bridge needs a server command map
+  public void setup() {
+    Stubs.installServer();
+    List<Map.Entry<String, String>> registered = new ArrayList<>();
+    commands = new ArrayList<>();
+    Set<String> granted = new HashSet<>();
+    for (int i = 0; i < aliases; i++) {
+      String alias = "alias" + i;
+      String permission = "icf.benchmark." + (i % permissions);
+      registered.add(new AbstractMap.SimpleEntry<>(alias, permission));
+      commands.add(alias);
+      commands.add(PLUGIN_NAME + ":" + alias);
+      // the player has every other permission
+      if ((i % permissions) % 2 == 0) {
+        granted.add(permission);
+      }
+    }
+    // commands from other plugins, which the listener needs to leave alone
+    for (int i = 0; i < 100; i++) {
+      commands.add("other" + i);
+    }
+    listener = new CommandSendListener(PLUGIN_NAME, registered);
+    player = Stubs.player("Player", granted);
+  }
+
+  @Benchmark
+  public Collection<String> on() {
+    PlayerCommandSendEvent event = new PlayerCommandSendEvent(player, new HashSet<>(commands));
+    listener.on(event);
+    return event.getCommands();
+  }
+
+  @Benchmark
+  public Collection<String> copyOnly() {
+    return new HashSet<>(commands);
+  }
+}
@@ -0,0 +1,686 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import com.mrivanplays.icf.annotations.Command;
+import com.mrivanplays.icf.annotations.Default;
+import com.mrivanplays.icf.annotations.RateLimit;
+import com.mrivanplays.icf.annotations.Subcommand;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Compiles classes annotated with {@link Command} into commands.
+ *
+ * <p>Every handler method is bound, once, into a invoker taking the sender and the arguments. The
+ * invoker resolves every parameter in order and then calls the method. Public methods of public
+ * classes without primitive parameters get linked through {@link LambdaMetafactory}, so they're
+ * called like a regular method. The others get bound into a {@link MethodHandle}, with primitive
+ * parsers for the primitive parameters so they don't get boxed. A missing or unresolvable argument
+ * aborts the call with a preallocated exception, which gets turned into the usage message.
+ */
+final class AnnotatedCommands {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  // indexed by the amount of parameters after the sender
+  private static final Class<?>[] TARGETS = {
+    Target0.class, Target1.class, Target2.class, Target3.class, Target4.class
+  };
+  private static final MethodType INVOKER_TYPE =
+      MethodType.methodType(void.class, CommandSender.class, CommandArguments.class);
+  private static final ArgumentFailure[] FAILURES;
+  private static final MethodHandle PARSE_INT;
+  private static final MethodHandle PARSE_LONG;
+  private static final MethodHandle PARSE_DOUBLE;
+  private static final MethodHandle PARSE;
+
+  static {
+    FailReason[] reasons = FailReason.values();
+    FAILURES = new ArgumentFailure[reasons.length];
+    for (FailReason reason : reasons) {
+      FAILURES[reason.ordinal()] = new ArgumentFailure(reason);
+    }
+    try {
+      PARSE_INT =
+          LOOKUP.findStatic(
+              AnnotatedCommands.class,
+              "parseInt",
+              MethodType.methodType(int.class, CommandArguments.class));
+      PARSE_LONG =
+          LOOKUP.findStatic(
+              AnnotatedCommands.class,
+              "parseLong",
+              MethodType.methodType(long.class, CommandArguments.class));
+      PARSE_DOUBLE =
+          LOOKUP.findStatic(
+              AnnotatedCommands.class,
+              "parseDouble",
+              MethodType.methodType(double.class, CommandArguments.class));
+      PARSE =
+          LOOKUP.findVirtual(
+              Parser.class, "parse", MethodType.methodType(Object.class, CommandArguments.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private AnnotatedCommands() {}
+
+  /**
+   * Compiles the specified handler into a command.
+   *
+   * @param handler instance of a class annotated with {@link Command}
+   * @param resolvers the argument resolvers per parameter type
+   * @return command
+   * @throws IllegalArgumentException if the handler is not valid, e.g. has a parameter of a type
+   *     without a resolver
+   */
+  @NotNull
+  static BaseCommand compile(
+      @NotNull Object handler, @NotNull Map<Class<?>, ArgumentResolver<?>> resolvers) {
+    Preconditions.checkNotNull(handler, "handler");
+    Class<?> type = handler.getClass();
+    Command command = type.getAnnotation(Command.class);
+    Preconditions.checkArgument(
+        command != null, "%s is not annotated with @Command", type.getName());
+    Preconditions.checkArgument(
+        command.value().length > 0, "@Command of %s has no name", type.getName());
+    RateLimit typeRateLimit = type.getAnnotation(RateLimit.class);
+
+    Handler root = null;
+    StringBuilder subcommandNames = new StringBuilder();
+    List<Handler> subcommands = new ArrayList<>();
+    for (Method method : type.getDeclaredMethods()) {
+      Default defaultHandler = method.getAnnotation(Default.class);
+      Subcommand subcommand = method.getAnnotation(Subcommand.class);
+      Preconditions.checkArgument(
+          defaultHandler == null || subcommand == null,
+          "%s is annotated with both @Default and @Subcommand",
+          method);
+      if (defaultHandler != null) {
+        Preconditions.checkArgument(root == null, "%s has more than one @Default", type.getName());
+        root =
+            bind(
+                handler,
+                method,
+                resolvers,
+                command.value(),
+                command.permission(),
+                command.playerOnly(),
+                "",
+                defaultHandler.usage());
+        root.setRateLimiter(rateLimiter(method, typeRateLimit));
+      } else if (subcommand != null) {
+        Preconditions.checkArgument(
+            subcommand.value().length > 0, "@Subcommand of %s has no name", method);
+        Handler subcommandHandler =
+            bind(
+                handler,
+                method,
+                resolvers,
+                subcommand.value(),
+                subcommand.permission(),
+                subcommand.playerOnly(),
+                subcommand.value()[0] + " ",
+                subcommand.usage());
+        subcommandHandler.setRateLimiter(rateLimiter(method, typeRateLimit));
+        subcommands.add(subcommandHandler);
+        if (subcommandNames.length() > 0) {
+          subcommandNames.append('|');
+        }
+        subcommandNames.append(subcommand.value()[0]);
+      }
+    }
+    if (root == null) {
+      String usage =
+          command.usage().isEmpty()
+              ? null
+              : ChatColor.translateAlternateColorCodes('&', command.usage());
+      root =
+          new Handler(
+              command.value(),
+              command.permission(),
+              command.playerOnly(),
+              null,
+              false,
+              usage,
+              "<" + subcommandNames + ">");
+      root.setRateLimiter(rateLimiter(null, typeRateLimit));
+    }
+    // sorted, as the order of declared methods is unspecified
+    subcommands.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
+    for (Handler subcommand : subcommands) {
+      root.addSubcommand(subcommand);
+    }
+    return root;
+  }
+
+  // every handler gets its own limiter, so they're limited separately
+  private static RateLimiter rateLimiter(Method method, RateLimit typeRateLimit) {
+    RateLimit rateLimit = method != null ? method.getAnnotation(RateLimit.class) : null;
+    if (rateLimit == null) {
+      rateLimit = typeRateLimit;
+    }
+    if (rateLimit == null) {
+      return null;
+    }
+    return RateLimiter.tokenBucket(rateLimit.permits(), rateLimit.value(), rateLimit.unit())
+        .setBypassPermission(
+            rateLimit.bypassPermission().isEmpty() ? null : rateLimit.bypassPermission());
+  }
+
+  private static Handler bind(
+      Object handler,
+      Method method,
+      Map<Class<?>, ArgumentResolver<?>> resolvers,
+      String[] names,
+      String permission,
+      boolean playerOnly,
+      String usagePrefix,
+      String usage) {
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    Preconditions.checkArgument(
+        parameterTypes.length > 0 && CommandSender.class.isAssignableFrom(parameterTypes[0]),
+        "The first parameter of %s must be a CommandSender",
+        method);
+    Class<?> senderType = parameterTypes[0];
+    Preconditions.checkArgument(
+        senderType == CommandSender.class || senderType == Player.class,
+        "The first parameter of %s must be a CommandSender or a Player",
+        method);
+
+    Parameter[] parameters = method.getParameters();
+    StringBuilder usageBuilder = new StringBuilder(usagePrefix);
+    for (int i = 1; i < parameterTypes.length; i++) {
+      Class<?> parameterType = parameterTypes[i];
+      Preconditions.checkArgument(
+          parameterType != CommandArguments.class || i == parameterTypes.length - 1,
+          "CommandArguments must be the last parameter of %s",
+          method);
+      String name =
+          parameters[i].isNamePresent()
+              ? parameters[i].getName()
+              : parameterType.getSimpleName().toLowerCase(Locale.ENGLISH);
+      if (i > 1) {
+        usageBuilder.append(' ');
+      }
+      if (parameterType == CommandArguments.class) {
+        usageBuilder.append('[').append(name).append("...]");
+      } else {
+        usageBuilder.append('<').append(name).append('>');
+      }
+    }
+    return new Handler(
+        names,
+        permission,
+        playerOnly,
+        invoker(handler, method, resolvers),
+        senderType == Player.class,
+        usage.isEmpty() ? null : ChatColor.translateAlternateColorCodes('&', usage),
+        usageBuilder.toString().trim());
+  }
+
+  private static Invoker invoker(
+      Object handler, Method method, Map<Class<?>, ArgumentResolver<?>> resolvers) {
+    MethodHandle target;
+    try {
+      method.setAccessible(true);
+      target = LOOKUP.unreflect(method);
+    } catch (ReflectiveOperationException | SecurityException e) {
+      throw new IllegalArgumentException("Can't access " + method, e);
+    }
+    Object receiver = Modifier.isStatic(method.getModifiers()) ? null : handler;
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    if (parameterTypes.length <= TARGETS.length && canLink(method)) {
+      Parser[] parsers = new Parser[parameterTypes.length - 1];
+      for (int i = 1; i < parameterTypes.length; i++) {
+        parsers[i - 1] = parser(method, parameterTypes[i], resolvers);
+      }
+      try {
+        return link(target, receiver, method, parsers);
+      } catch (LambdaConversionException ignored) {
+        // bound into a method handle instead
+      }
+    }
+    if (receiver != null) {
+      target = target.bindTo(receiver);
+    }
+    Class<?>[] invokerParameters = parameterTypes.clone();
+    invokerParameters[0] = CommandSender.class;
+    target = target.asType(MethodType.methodType(void.class, invokerParameters));
+    // resolved from the last to the first, so the first is the outermost and gets resolved first
+    for (int i = parameterTypes.length - 1; i >= 1; i--) {
+      target =
+          MethodHandles.collectArguments(
+              target, i, handleParser(method, parameterTypes[i], resolvers));
+    }
+    if (parameterTypes.length == 1) {
+      target = MethodHandles.dropArguments(target, 1, CommandArguments.class);
+    } else {
+      int[] reorder = new int[parameterTypes.length];
+      Arrays.fill(reorder, 1);
+      reorder[0] = 0;
+      target = MethodHandles.permuteArguments(target, INVOKER_TYPE, reorder);
+    }
+    MethodHandle bound = target;
+    return (sender, args) -> {
+      // a statement, so the call site returns void
+      bound.invokeExact(sender, args);
+    };
+  }
+
+  /**
+   * Binds the method to the target of its amount of parameters, through {@link
+   * LambdaMetafactory}. The target calls the method directly, and the invoker calls the target
+   * like a regular method, so the JIT can inline the whole call, unlike a method handle kept in a
+   * field, which it can't treat as a constant.
+   */
+  private static Invoker link(
+      MethodHandle target, Object receiver, Method method, Parser[] parsers)
+      throws LambdaConversionException {
+    Class<?> targetType = TARGETS[parsers.length];
+    Object linked;
+    try {
+      CallSite site =
+          LambdaMetafactory.metafactory(
+              LOOKUP,
+              "call",
+              receiver == null
+                  ? MethodType.methodType(targetType)
+                  : MethodType.methodType(targetType, method.getDeclaringClass()),
+              MethodType.genericMethodType(parsers.length + 1)
+                  .changeParameterType(0, CommandSender.class)
+                  .changeReturnType(void.class),
+              target,
+              // the primitives get unboxed by the target
+              MethodType.methodType(void.class, method.getParameterTypes())
+                  .wrap()
+                  .changeReturnType(void.class));
+      linked = receiver == null ? site.getTarget().invoke() : site.getTarget().invoke(receiver);
+    } catch (LambdaConversionException e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalArgumentException("Can't bind " + method, e);
+    }
+    switch (parsers.length) {
+      case 0:
+        Target0 target0 = (Target0) linked;
+        return (sender, args) -> target0.call(sender);
+      case 1:
+        Target1 target1 = (Target1) linked;
+        Parser first = parsers[0];
+        return (sender, args) -> target1.call(sender, first.parse(args));
+      case 2:
+        Target2 target2 = (Target2) linked;
+        Parser first2 = parsers[0];
+        Parser second2 = parsers[1];
+        return (sender, args) -> target2.call(sender, first2.parse(args), second2.parse(args));
+      case 3:
+        Target3 target3 = (Target3) linked;
+        Parser first3 = parsers[0];
+        Parser second3 = parsers[1];
+        Parser third3 = parsers[2];
+        return (sender, args) ->
+            target3.call(sender, first3.parse(args), second3.parse(args), third3.parse(args));
+      default:
+        Target4 target4 = (Target4) linked;
+        Parser first4 = parsers[0];
+        Parser second4 = parsers[1];
+        Parser third4 = parsers[2];
+        Parser fourth4 = parsers[3];
+        return (sender, args) ->
+            target4.call(
+                sender,
+                first4.parse(args),
+                second4.parse(args),
+                third4.parse(args),
+                fourth4.parse(args));
+    }
+  }
+
+  // the targets take objects, so a primitive parameter would get boxed on every call
+  private static boolean canLink(Method method) {
+    if (!Modifier.isPublic(method.getModifiers()) || !canLink(method.getDeclaringClass())) {
+      return false;
+    }
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      if (parameterType.isPrimitive() || !canLink(parameterType)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // the linked target is defined next to this class, so it has to see and access the type
+  private static boolean canLink(Class<?> type) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    for (Class<?> enclosing = type; enclosing != null; enclosing = enclosing.getDeclaringClass()) {
+      if (!Modifier.isPublic(enclosing.getModifiers())) {
+        return false;
+      }
+    }
+    try {
+      return Class.forName(type.getName(), false, AnnotatedCommands.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static MethodHandle handleParser(
+      Method method, Class<?> type, Map<Class<?>, ArgumentResolver<?>> resolvers) {
+    if (!resolvers.containsKey(type)) {
+      if (type == int.class) {
+        return PARSE_INT;
+      }
+      if (type == long.class) {
+        return PARSE_LONG;
+      }
+      if (type == double.class) {
+        return PARSE_DOUBLE;
+      }
+    }
+    // cast to the wrapper first for primitives, which then gets unboxed
+    Class<?> resolvedType = MethodType.methodType(type).wrap().returnType();
+    return PARSE
+        .bindTo(parser(method, type, resolvers))
+        .asType(MethodType.methodType(resolvedType, CommandArguments.class))
+        .asType(MethodType.methodType(type, CommandArguments.class));
+  }
+
+  private static Parser parser(
+      Method method, Class<?> type, Map<Class<?>, ArgumentResolver<?>> resolvers) {
+    ArgumentResolver<?> resolver = resolvers.get(type);
+    if (resolver == null) {
+      if (type == int.class || type == Integer.class) {
+        return AnnotatedCommands::parseInt;
+      }
+      if (type == long.class || type == Long.class) {
+        return AnnotatedCommands::parseLong;
+      }
+      if (type == double.class || type == Double.class) {
+        return AnnotatedCommands::parseDouble;
+      }
+      if (type == String.class) {
+        return AnnotatedCommands::parseString;
+      }
+      if (type == CommandArguments.class) {
+        return args -> args;
+      }
+      if (type == float.class) {
+        resolver = resolvers.get(Float.class);
+      }
+    }
+    Preconditions.checkArgument(
+        resolver != null,
+        "There is no argument resolver for %s, which is a parameter of %s",
+        type.getName(),
+        method);
+    ArgumentResolver<?> typeResolver = resolver;
+    return args -> parseWith(typeResolver, args);
+  }
+
+  private static int parseInt(CommandArguments args) {
+    IntArgumentOptional optional = args.nextIntPrimitive();
+    if (!optional.isPresent()) {
+      throw FAILURES[optional.failReason.ordinal()];
+    }
+    return optional.getAsInt();
+  }
+
+  private static long parseLong(CommandArguments args) {
+    LongArgumentOptional optional = args.nextLongPrimitive();
+    if (!optional.isPresent()) {
+      throw FAILURES[optional.failReason.ordinal()];
+    }
+    return optional.getAsLong();
+  }
+
+  private static double parseDouble(CommandArguments args) {
+    DoubleArgumentOptional optional = args.nextDoublePrimitive();
+    if (!optional.isPresent()) {
+      throw FAILURES[optional.failReason.ordinal()];
+    }
+    return optional.getAsDouble();
+  }
+
+  private static String parseString(CommandArguments args) {
+    String value = args.nextUnsafe();
+    if (value == null) {
+      throw failure(args, FailReason.ARGUMENT_NOT_TYPED);
+    }
+    return value;
+  }
+
+  private static Object parseWith(ArgumentResolver<?> resolver, CommandArguments args) {
+    if (!args.hasNext()) {
+      throw failure(args, FailReason.ARGUMENT_NOT_TYPED);
+    }
+    Object value;
+    try {
+      value = resolver.resolve(args.nextUnsafe());
+    } catch (Throwable error) {
+      throw failure(args, FailReason.ARGUMENT_PARSED_NOT_TYPE, resolver);
+    }
+    if (value == null) {
+      throw failure(args, FailReason.ARGUMENT_PARSED_NULL, resolver);
+    }
+    return value;
+  }
+
+  private static ArgumentFailure failure(
+      CommandArguments args, FailReason reason, ArgumentResolver<?> resolver) {
+    if (resolver instanceof SuggestionProvider) {
+      args.recordFailure(reason);
+      return new ArgumentFailure(reason, (SuggestionProvider) resolver);
+    }
+    return failure(args, reason);
+  }
+
+  // not needed by the primitive parsers, as the next*Primitive methods record their failures
+  private static ArgumentFailure failure(CommandArguments args, FailReason reason) {
+    args.recordFailure(reason);
+    return FAILURES[reason.ordinal()];
+  }
+
+  /** Thrown, preallocated and without a stack trace, when a argument can't be resolved. */
+  private static final class ArgumentFailure extends RuntimeException {
+
+    private final FailReason failReason;
+    private final SuggestionProvider suggestionProvider;
+
+    ArgumentFailure(FailReason failReason) {
+      this(failReason, null);
+    }
+
+    // not preallocated, for the resolvers which can suggest what was meant
+    ArgumentFailure(FailReason failReason, SuggestionProvider suggestionProvider) {
+      super(failReason.name(), null, false, false);
+      this.failReason = failReason;
+      this.suggestionProvider = suggestionProvider;
+    }
+  }
+
+  /** Resolves the argument of a parameter, or throws a {@link ArgumentFailure}. */
+  @FunctionalInterface
+  private interface Parser {
+
+    Object parse(CommandArguments args);
+  }
+
+  /** Resolves the arguments of a bound handler method and calls it. */
+  @FunctionalInterface
+  private interface Invoker {
+
+    void invoke(CommandSender sender, CommandArguments args) throws Throwable;
+  }
+
+  // the targets of the linked handler methods, by the amount of parameters after the sender
+
+  @FunctionalInterface
+  interface Target0 {
+
+    void call(CommandSender sender);
+  }
+
+  @FunctionalInterface
+  interface Target1 {
+
+    void call(CommandSender sender, Object first);
+  }
+
+  @FunctionalInterface
+  interface Target2 {
+
+    void call(CommandSender sender, Object first, Object second);
+  }
+
+  @FunctionalInterface
+  interface Target3 {
+
+    void call(CommandSender sender, Object first, Object second, Object third);
+  }
+
+  @FunctionalInterface
+  interface Target4 {
+
+    void call(CommandSender sender, Object first, Object second, Object third, Object fourth);
+  }
+
+  /** A command, invoking a bound handler method. */
+  private static final class Handler extends BaseCommand {
+
+    private final Invoker invoker;
+    private final boolean requiresPlayer;
+    private final String usage;
+    private final String usageSuffix;
+    // suggests the subcommands when none matched, compiled when first needed
+    private CommandNode subcommandTree;
+
+    Handler(
+        String[] names,
+        String permission,
+        boolean playerOnly,
+        Invoker invoker,
+        boolean requiresPlayer,
+        String usage,
+        String usageSuffix) {
+      super(
+          playerOnly,
+          permission.isEmpty() ? null : permission,
+          names[0],
+          names.length > 1 ? Arrays.copyOfRange(names, 1, names.length) : null);
+      this.invoker = invoker;
+      this.requiresPlayer = requiresPlayer;
+      this.usage = usage;
+      this.usageSuffix = usageSuffix;
+    }
+
+    @Override
+    public void execute(
+        @NotNull CommandSender sender, @NotNull String label, @NotNull CommandArguments args) {
+      if (invoker == null) {
+        // no subcommand matched the argument, if there is one
+        sendUsage(sender, label, args.peek(), argument -> suggestSubcommand(sender, argument));
+        return;
+      }
+      if (requiresPlayer && !(sender instanceof Player)) {
+        // the default handler of a command, which subcommands still may be invoked by the console
+        CommandStats stats = args.getStats();
+        if (stats != null) {
+          stats.recordConsoleRejection();
+        }
+        if (commandManager != null) {
+          sender.sendMessage(commandManager.getNoConsoleTemplate().render(label));
+        }
+        return;
+      }
+      try {
+        invoker.invoke(sender, args);
+      } catch (ArgumentFailure failure) {
+        sendUsage(
+            sender,
+            label,
+            failure.failReason != FailReason.ARGUMENT_NOT_TYPED ? args.previous() : null,
+            failure.suggestionProvider);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    private void sendUsage(
+        CommandSender sender,
+        String label,
+        String argument,
+        SuggestionProvider suggestionProvider) {
+      if (usage != null) {
+        sender.sendMessage(usage);
+      } else if (commandManager == null) {
+        sender.sendMessage(ChatColor.RED + "Usage: /" + label + " " + usageSuffix);
+      } else if (argument != null) {
+        sender.sendMessage(
+            commandManager.getInvalidArgumentTemplate().render(argument, label, usageSuffix));
+      } else {
+        sender.sendMessage(commandManager.getUsageTemplate().render(label, usageSuffix));
+      }
+      if (argument != null && suggestionProvider != null && commandManager != null) {
+        List<String> suggestions = suggestionProvider.suggest(argument);
+        if (!suggestions.isEmpty()) {
+          sender.sendMessage(
+              commandManager.getDidYouMeanTemplate().render(String.join(", ", suggestions)));
+        }
+      }
+    }
+
+    private List<String> suggestSubcommand(CommandSender sender, String argument) {
+      CommandNode tree = subcommandTree;
+      if (tree == null) {
+        tree = CommandNode.compile(this);
+        subcommandTree = tree;
+      }
+      // only the subcommands the sender is allowed to use, so the others aren't revealed
+      return tree.suggest(sender, argument);
+    }
+  }
+}
@@ -21,6 +21,8 @@
 package com.mrivanplays.icf;
 
 import com.google.common.base.Preconditions;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.jetbrains.annotations.NotNull;
@@ -33,8 +35,19 @@ import org.jetbrains.annotations.Nullable;
  */
 public final class ArgumentOptional<T> {
 
+  private static final ArgumentOptional<?>[] EMPTY;
+
+  static {
+    FailReason[] reasons = FailReason.values();
+    EMPTY = new ArgumentOptional<?>[reasons.length];
+    for (FailReason reason : reasons) {
+      EMPTY[reason.ordinal()] = new ArgumentOptional<>(null, reason);
+    }
+  }
+
   /**
-   * Creates a new argument optional. If the value given is null, the optional will be empty.
+   * Creates a new argument optional. If the value given is null, the optional will be empty. Empty
+   * optionals are shared per {@link FailReason}, so they don't get allocated.
    *
    * @param value the value of which you want argument optional
    * @param failReason the fail reason of why this argument optional would fail
@@ -42,17 +55,55 @@ public final class ArgumentOptional<T> {
    * @return argument optional if value not null, empty argument optional else
    */
   public static <T> ArgumentOptional<T> of(@Nullable T value, @NotNull FailReason failReason) {
-    return value != null
-        ? new ArgumentOptional<>(value, failReason)
-        : new ArgumentOptional<>(null, failReason);
+    return value != null ? new ArgumentOptional<>(value, failReason) : empty(failReason);
+  }
+
+  /**
+   * Gets the empty argument optional for the specified {@link FailReason}.
+   *
+   * @param failReason the fail reason of why this argument optional failed
+   * @param <T> argument type
+   * @return empty argument optional
+   */
+  @NotNull
+  @SuppressWarnings("unchecked")
+  public static <T> ArgumentOptional<T> empty(@NotNull FailReason failReason) {
+    Preconditions.checkNotNull(failReason, "failReason");
+    return (ArgumentOptional<T>) EMPTY[failReason.ordinal()];
+  }
+
+  // a failed optional of a argument, which was resolved by a suggestion provider
+  static <T> ArgumentOptional<T> failed(
+      FailReason failReason, SuggestionProvider suggestionProvider, String input) {
+    return new ArgumentOptional<>(null, failReason, suggestionProvider, input, -1);
+  }
+
+  // a failed optional of a list, whose element at the specified index failed
+  static <T> ArgumentOptional<T> failedAt(FailReason failReason, int failIndex) {
+    return new ArgumentOptional<>(null, failReason, null, null, failIndex);
   }
 
   private final T value;
-  private final FailReason failReason;
+  final FailReason failReason;
+  private final SuggestionProvider suggestionProvider;
+  private final String input;
+  private final int failIndex;
 
   private ArgumentOptional(@Nullable T value, @NotNull FailReason failReason) {
+    this(value, failReason, null, null, -1);
+  }
+
+  private ArgumentOptional(
+      T value,
+      FailReason failReason,
+      SuggestionProvider suggestionProvider,
+      String input,
+      int failIndex) {
     this.value = value;
     this.failReason = failReason;
+    this.suggestionProvider = suggestionProvider;
+    this.input = input;
+    this.failIndex = failIndex;
   }
 
   /**
@@ -68,7 +119,7 @@ public final class ArgumentOptional<T> {
     if (isPresent()) {
       action.accept(value);
     }
-    return new RestArgumentAction(failReason);
+    return RestArgumentAction.of(failReason);
   }
 
   /**
@@ -80,16 +131,18 @@ public final class ArgumentOptional<T> {
    *     not present.
    */
   @NotNull
+  @SuppressWarnings("unchecked")
   public <U> ArgumentOptional<U> map(@NotNull Function<T, U> mapper) {
     Preconditions.checkNotNull(mapper, "mapper");
     if (isPresent()) {
       U newValue = mapper.apply(value);
       if (newValue == null) {
-        return ArgumentOptional.of(null, FailReason.ARGUMENT_PARSED_NULL);
+        return empty(FailReason.ARGUMENT_PARSED_NULL);
       }
-      return ArgumentOptional.of(newValue, failReason);
+      return new ArgumentOptional<>(newValue, failReason);
     } else {
-      return ArgumentOptional.of(null, failReason);
+      // empty optionals hold no value, so they can be reused as any type
+      return (ArgumentOptional<U>) this;
     }
   }
 
@@ -102,6 +155,31 @@ public final class ArgumentOptional<T> {
     return value != null;
   }
 
+  /**
+   * Suggests what was meant by the argument, if it failed to be resolved by a {@link
+   * ArgumentResolver} which is also a {@link SuggestionProvider}, like a {@link EnumResolver}. The
+   * suggestions are looked up when this method is called.
+   *
+   * @return suggestions, the closest first, or a empty list
+   */
+  @NotNull
+  public List<String> getSuggestions() {
+    return suggestionProvider != null
+        ? suggestionProvider.suggest(input)
+        : Collections.<String>emptyList();
+  }
+
+  /**
+   * Gets the index of the element which failed to be resolved, if this is a failed optional of a
+   * list resolved by {@link CommandArguments#nextList(ListResolver)} or {@link
+   * CommandArguments#nextRemainingList(ListResolver)}. Every element of a range counts once.
+   *
+   * @return element index, or <code>-1</code> if not a list or not failed
+   */
+  public int getFailIndex() {
+    return failIndex;
+  }
+
   /**
    * Gets the specified value if present. If the value is not present, the method will throw a
    * {@link NullPointerException}. It is required to use instead {@link #ifPresent(Consumer)} to
@@ -37,27 +37,35 @@ public class ArgumentResolvers {
   public static ArgumentResolver<Float> FLOAT = Float::parseFloat;
   public static ArgumentResolver<Player> PLAYER = Bukkit::getPlayer;
   public static ArgumentResolver<Player> PLAYER_EXACT = Bukkit::getPlayerExact;
+
+  /**
+   * May look the player up from the web, blocking the server thread. {@link OfflinePlayerCache}
+   * looks the players up off the server thread instead.
+   */
   public static ArgumentResolver<OfflinePlayer> PLAYER_OFFLINE = Bukkit::getOfflinePlayer;
 
-  public static ArgumentResolver<GameMode> GAME_MODE =
-      argument -> GameMode.valueOf(argument.toUpperCase());
+  /** Game modes by their names. Unknown names resolve to null. */
+  public static ArgumentResolver<GameMode> GAME_MODE = forEnum(GameMode.class);
+
+  /** Game modes by their names or numbers. Unknown names and numbers resolve to null. */
   public static ArgumentResolver<GameMode> COMPLEX_GAME_MODE =
-      argument -> {
-        try {
-          return GameMode.valueOf(argument.toUpperCase());
-        } catch (IllegalArgumentException e) {
-          int gameMode = INTEGER.resolve(argument);
-          if (gameMode == 0) {
-            return GameMode.SURVIVAL;
-          } else if (gameMode == 1) {
-            return GameMode.CREATIVE;
-          } else if (gameMode == 2) {
-            return GameMode.ADVENTURE;
-          } else if (gameMode == 3) {
-            return GameMode.SPECTATOR;
-          } else {
-            return null;
-          }
-        }
-      };
+      EnumResolver.builder(GameMode.class)
+          .hiddenAlias("0", GameMode.SURVIVAL)
+          .hiddenAlias("1", GameMode.CREATIVE)
+          .hiddenAlias("2", GameMode.ADVENTURE)
+          .hiddenAlias("3", GameMode.SPECTATOR)
+          .build();
+
+  /**
+   * Creates a new argument resolver of the constants of the specified enum, by their names, case
+   * insensitive. Use {@link EnumResolver#builder(Class)} to resolve them from numbers or aliases
+   * too. The resolver should be created once and reused, as creating it builds its lookup table.
+   *
+   * @param type the enum class
+   * @param <E> enum type
+   * @return enum resolver
+   */
+  public static <E extends Enum<E>> EnumResolver<E> forEnum(Class<E> type) {
+    return EnumResolver.builder(type).build();
+  }
 }
@@ -0,0 +1,665 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a compiled description of the arguments of a command. The schema resolves all of the
+ * arguments in a single pass into a {@link Result}, which can be reused for every invocation, and
+ * reports the first bad argument with its index and {@link FailReason}.
+ *
+ * <blockquote>
+ *
+ * <pre>
+ *   private static final ArgumentSchema SCHEMA =
+ *       ArgumentSchema.builder()
+ *           .required("player", ArgumentResolvers.PLAYER)
+ *           .optionalInt("amount", 1)
+ *           .optionalGreedy("reason", "No reason")
+ *           .build();
+ *
+ *   public void execute(CommandSender cs, String label, CommandArguments args) {
+ *     ArgumentSchema.Result result = SCHEMA.parse(args);
+ *     if (!result.isSuccess()) {
+ *       cs.sendMessage("Usage: " + SCHEMA.getUsage(label));
+ *       return;
+ *     }
+ *     Player player = result.get(0);
+ *     int amount = result.getInt(1);
+ *     String reason = result.get(2);
+ *   }
+ * </pre>
+ *
+ * </blockquote>
+ *
+ * <p>The schema is also a {@link TabCompleter}, which completes every argument with the completions
+ * given to its slot, so it can be used as a tab completer of the command.
+ */
+public final class ArgumentSchema implements TabCompleter {
+
+  private static final int RESOLVER = 0;
+  private static final int STRING = 1;
+  private static final int INT = 2;
+  private static final int LONG = 3;
+  private static final int DOUBLE = 4;
+  private static final int GREEDY = 5;
+
+  /**
+   * Creates a new builder of a argument schema.
+   *
+   * @return builder
+   */
+  @NotNull
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final Slot[] slots;
+  private final Map<String, Integer> indexes;
+  private final String usage;
+
+  private ArgumentSchema(Slot[] slots) {
+    this.slots = slots;
+    this.indexes = new HashMap<>(slots.length * 2);
+    StringBuilder usage = new StringBuilder();
+    for (int i = 0; i < slots.length; i++) {
+      Slot slot = slots[i];
+      indexes.put(slot.name, i);
+      if (i != 0) {
+        usage.append(' ');
+      }
+      usage.append(slot.optional ? '[' : '<').append(slot.name);
+      if (slot.kind == GREEDY) {
+        usage.append("...");
+      }
+      usage.append(slot.optional ? ']' : '>');
+    }
+    this.usage = usage.toString();
+  }
+
+  /**
+   * Parses the arguments left into a new result. Prefer {@link #parse(CommandArguments, Result)}
+   * with a reused result when the command gets invoked often.
+   *
+   * @param args the arguments to parse
+   * @return parse result
+   */
+  @NotNull
+  public Result parse(@NotNull CommandArguments args) {
+    Result result = newResult();
+    parse(args, result);
+    return result;
+  }
+
+  /**
+   * Parses the arguments left into the specified result, overwriting whatever it held before. Every
+   * slot consumes a argument, except for a greedy slot which consumes all of the arguments left.
+   * Parsing stops at the first bad argument, which leaves the arguments after it unconsumed.
+   * Arguments left after the last slot are not consumed either.
+   *
+   * @param args the arguments to parse
+   * @param result the result to parse into, created by {@link #newResult()} of this schema
+   * @return <code>true</code> if all of the arguments were resolved, <code>false</code> otherwise
+   */
+  public boolean parse(@NotNull CommandArguments args, @NotNull Result result) {
+    Preconditions.checkNotNull(args, "args");
+    Preconditions.checkNotNull(result, "result");
+    Preconditions.checkArgument(result.schema == this, "The result is of a different schema");
+    result.clear();
+    Object[] values = result.values;
+    long[] primitives = result.primitives;
+    for (int i = 0; i < slots.length; i++) {
+      Slot slot = slots[i];
+      if (!args.hasNext()) {
+        if (!slot.optional) {
+          return fail(args, result, i, FailReason.ARGUMENT_NOT_TYPED, null);
+        }
+        values[i] = slot.defaultValue;
+        primitives[i] = slot.defaultPrimitive;
+        continue;
+      }
+      result.present[i] = true;
+      if (slot.kind == GREEDY) {
+        values[i] = args.joinArgumentsSpace(0);
+        while (args.nextUnsafe() != null) {
+          // consumes the joined arguments
+        }
+        continue;
+      }
+      String token = args.nextUnsafe();
+      switch (slot.kind) {
+        case STRING:
+          values[i] = token;
+          break;
+        case INT:
+          IntArgumentOptional intValue = PrimitiveParsers.parseInt(token);
+          if (!intValue.isPresent()) {
+            return fail(args, result, i, intValue.failReason, token);
+          }
+          primitives[i] = intValue.getAsInt();
+          break;
+        case LONG:
+          LongArgumentOptional longValue = PrimitiveParsers.parseLong(token);
+          if (!longValue.isPresent()) {
+            return fail(args, result, i, longValue.failReason, token);
+          }
+          primitives[i] = longValue.getAsLong();
+          break;
+        case DOUBLE:
+          DoubleArgumentOptional doubleValue = PrimitiveParsers.parseDouble(token);
+          if (!doubleValue.isPresent()) {
+            return fail(args, result, i, doubleValue.failReason, token);
+          }
+          primitives[i] = Double.doubleToRawLongBits(doubleValue.getAsDouble());
+          break;
+        default:
+          Object value;
+          try {
+            value = slot.resolver.resolve(token);
+          } catch (Throwable error) {
+            return fail(args, result, i, FailReason.ARGUMENT_PARSED_NOT_TYPE, token);
+          }
+          if (value == null) {
+            return fail(args, result, i, FailReason.ARGUMENT_PARSED_NULL, token);
+          }
+          values[i] = value;
+      }
+    }
+    return true;
+  }
+
+  private static boolean fail(
+      CommandArguments args, Result result, int index, FailReason reason, String argument) {
+    args.recordFailure(reason);
+    return result.fail(index, reason, argument);
+  }
+
+  /**
+   * Creates a new result of this schema, which can be reused for all of the parses with {@link
+   * #parse(CommandArguments, Result)}. A result is not thread safe, so a command executed
+   * asynchronously needs a result per thread.
+   *
+   * @return new result
+   */
+  @NotNull
+  public Result newResult() {
+    return new Result(this);
+  }
+
+  /**
+   * Returns the count of slots of this schema.
+   *
+   * @return slots count
+   */
+  public int size() {
+    return slots.length;
+  }
+
+  /**
+   * Gets the name of the specified slot.
+   *
+   * @param slot the index of the slot
+   * @return slot name
+   */
+  @NotNull
+  public String getName(int slot) {
+    Preconditions.checkElementIndex(slot, slots.length, "slot");
+    return slots[slot].name;
+  }
+
+  /**
+   * Gets the index of the slot with the specified name.
+   *
+   * @param name the name of the slot
+   * @return slot index, or -1 if there is no such slot
+   */
+  public int indexOf(@NotNull String name) {
+    Integer index = indexes.get(name);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Returns the usage of the arguments, e.g. <code>&lt;player&gt; [amount] [reason...]</code>.
+   * Required slots are surrounded by <code>&lt;&gt;</code>, optional ones by <code>[]</code> and
+   * greedy ones end with <code>...</code>.
+   *
+   * @return arguments usage
+   */
+  @NotNull
+  public String getUsage() {
+    return usage;
+  }
+
+  /**
+   * Returns the usage of the command with the specified label, e.g. <code>/label &lt;player&gt;
+   * </code>.
+   *
+   * @param label the label the command was invoked with
+   * @return command usage
+   */
+  @NotNull
+  public String getUsage(@NotNull String label) {
+    return usage.isEmpty() ? "/" + label : "/" + label + " " + usage;
+  }
+
+  @Nullable
+  @Override
+  public Iterable<String> tabComplete(
+      @NotNull CommandSender sender, @NotNull String label, @NotNull CommandArguments args) {
+    if (slots.length == 0) {
+      return null;
+    }
+    // the last argument is the one being completed
+    int index = args.size() - 1;
+    if (index < 0) {
+      index = 0;
+    }
+    if (index >= slots.length) {
+      if (slots[slots.length - 1].kind != GREEDY) {
+        return null;
+      }
+      index = slots.length - 1;
+    }
+    TabCompleter completer = slots[index].completer;
+    return completer == null ? null : completer.tabComplete(sender, label, args);
+  }
+
+  /**
+   * Represents the result of a {@link ArgumentSchema} parse. The values are got by the index of
+   * their slot, or by its name.
+   */
+  public static final class Result {
+
+    private final ArgumentSchema schema;
+    private final Object[] values;
+    private final long[] primitives;
+    private final boolean[] present;
+    private int failIndex;
+    private FailReason failReason;
+    private String failedArgument;
+
+    private Result(ArgumentSchema schema) {
+      this.schema = schema;
+      this.values = new Object[schema.slots.length];
+      this.primitives = new long[schema.slots.length];
+      this.present = new boolean[schema.slots.length];
+      clear();
+    }
+
+    private void clear() {
+      Arrays.fill(values, null);
+      Arrays.fill(present, false);
+      failIndex = -1;
+      failReason = FailReason.NO_FAIL_REASON;
+      failedArgument = null;
+    }
+
+    private boolean fail(int index, FailReason reason, String argument) {
+      failIndex = index;
+      failReason = reason;
+      failedArgument = argument;
+      return false;
+    }
+
+    /**
+     * Returns the schema this result is of.
+     *
+     * @return schema
+     */
+    @NotNull
+    public ArgumentSchema getSchema() {
+      return schema;
+    }
+
+    /**
+     * Returns whenever all of the arguments were resolved.
+     *
+     * @return <code>true</code> if successful, <code>false</code> otherwise
+     */
+    public boolean isSuccess() {
+      return failIndex == -1;
+    }
+
+    /**
+     * Returns the index of the first bad argument, relative to the first argument parsed. As every
+     * slot before it consumed a single argument, this is also the index of its slot.
+     *
+     * @return fail index, or -1 if successful
+     */
+    public int getFailIndex() {
+      return failIndex;
+    }
+
+    /**
+     * Returns the fail reason of the first bad argument.
+     *
+     * @return fail reason, {@link FailReason#NO_FAIL_REASON} if successful
+     */
+    @NotNull
+    public FailReason getFailReason() {
+      return failReason;
+    }
+
+    /**
+     * Returns the first bad argument, as typed by the sender.
+     *
+     * @return failed argument, or null if successful or the argument wasn't typed
+     */
+    @Nullable
+    public String getFailedArgument() {
+      return failedArgument;
+    }
+
+    /**
+     * Returns whenever the argument of the specified slot was typed, rather than defaulted.
+     *
+     * @param slot the index of the slot
+     * @return <code>true</code> if typed, <code>false</code> otherwise
+     */
+    public boolean isPresent(int slot) {
+      Preconditions.checkElementIndex(slot, values.length, "slot");
+      return present[slot];
+    }
+
+    /**
+     * Gets the value of the specified slot. Slots of primitives need to be got with {@link
+     * #getInt(int)}, {@link #getLong(int)} or {@link #getDouble(int)}.
+     *
+     * @param slot the index of the slot
+     * @param <T> the type of the value
+     * @return value, or the default value of a optional slot which wasn't typed
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(int slot) {
+      checkKind(slot, false);
+      return (T) values[slot];
+    }
+
+    /**
+     * Gets the value of the slot with the specified name.
+     *
+     * @param name the name of the slot
+     * @param <T> the type of the value
+     * @return value, or the default value of a optional slot which wasn't typed
+     */
+    @Nullable
+    public <T> T get(@NotNull String name) {
+      return get(indexOf(name));
+    }
+
+    public int getInt(int slot) {
+      checkKind(slot, true);
+      return (int) primitives[slot];
+    }
+
+    public long getLong(int slot) {
+      checkKind(slot, true);
+      return primitives[slot];
+    }
+
+    public double getDouble(int slot) {
+      checkKind(slot, true);
+      return Double.longBitsToDouble(primitives[slot]);
+    }
+
+    private int indexOf(String name) {
+      int index = schema.indexOf(name);
+      Preconditions.checkArgument(index != -1, "There is no slot named %s", name);
+      return index;
+    }
+
+    private void checkKind(int slot, boolean primitive) {
+      Preconditions.checkElementIndex(slot, values.length, "slot");
+      int kind = schema.slots[slot].kind;
+      boolean primitiveKind = kind == INT || kind == LONG || kind == DOUBLE;
+      if (primitive) {
+        Preconditions.checkArgument(
+            primitiveKind, "Slot %s is not a primitive", schema.slots[slot].name);
+      } else {
+        Preconditions.checkArgument(
+            !primitiveKind, "Slot %s is a primitive", schema.slots[slot].name);
+      }
+    }
+  }
+
+  /** Represents a builder of a {@link ArgumentSchema}. */
+  public static final class Builder {
+
+    private final List<Slot> slots = new ArrayList<>();
+
+    private Builder() {}
+
+    @NotNull
+    public Builder required(@NotNull String name, @NotNull ArgumentResolver<?> resolver) {
+      Preconditions.checkNotNull(resolver, "resolver");
+      return add(new Slot(name, RESOLVER, false, resolver, null, 0));
+    }
+
+    @NotNull
+    public Builder optional(@NotNull String name, @NotNull ArgumentResolver<?> resolver) {
+      return optional(name, resolver, null);
+    }
+
+    @NotNull
+    public <T> Builder optional(
+        @NotNull String name,
+        @NotNull ArgumentResolver<? extends T> resolver,
+        @Nullable T defaultValue) {
+      Preconditions.checkNotNull(resolver, "resolver");
+      return add(new Slot(name, RESOLVER, true, resolver, defaultValue, 0));
+    }
+
+    @NotNull
+    public Builder requiredString(@NotNull String name) {
+      return add(new Slot(name, STRING, false, null, null, 0));
+    }
+
+    @NotNull
+    public Builder optionalString(@NotNull String name, @Nullable String defaultValue) {
+      return add(new Slot(name, STRING, true, null, defaultValue, 0));
+    }
+
+    @NotNull
+    public Builder requiredInt(@NotNull String name) {
+      return add(new Slot(name, INT, false, null, null, 0));
+    }
+
+    @NotNull
+    public Builder optionalInt(@NotNull String name, int defaultValue) {
+      return add(new Slot(name, INT, true, null, null, defaultValue));
+    }
+
+    @NotNull
+    public Builder requiredLong(@NotNull String name) {
+      return add(new Slot(name, LONG, false, null, null, 0));
+    }
+
+    @NotNull
+    public Builder optionalLong(@NotNull String name, long defaultValue) {
+      return add(new Slot(name, LONG, true, null, null, defaultValue));
+    }
+
+    @NotNull
+    public Builder requiredDouble(@NotNull String name) {
+      return add(new Slot(name, DOUBLE, false, null, null, 0));
+    }
+
+    @NotNull
+    public Builder optionalDouble(@NotNull String name, double defaultValue) {
+      return add(
+          new Slot(name, DOUBLE, true, null, null, Double.doubleToRawLongBits(defaultValue)));
+    }
+
+    /**
+     * Adds a slot which joins all of the arguments left with space. A greedy slot must be the last
+     * one.
+     *
+     * @param name the name of the slot
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder greedy(@NotNull String name) {
+      return add(new Slot(name, GREEDY, false, null, null, 0));
+    }
+
+    /**
+     * Adds a optional slot which joins all of the arguments left with space. A greedy slot must be
+     * the last one.
+     *
+     * @param name the name of the slot
+     * @param defaultValue the value when no arguments are left
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder optionalGreedy(@NotNull String name, @Nullable String defaultValue) {
+      return add(new Slot(name, GREEDY, true, null, defaultValue, 0));
+    }
+
+    /**
+     * Sets the completions of the last added slot.
+     *
+     * @param completions the completions of the slot
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder completes(@NotNull String... completions) {
+      return completes(CompletionIndex.of(completions));
+    }
+
+    /**
+     * Sets the completions of the last added slot.
+     *
+     * @param completions the completions of the slot
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder completes(@NotNull Collection<String> completions) {
+      return completes(CompletionIndex.of(completions));
+    }
+
+    /**
+     * Sets the completions of the last added slot to a already created completion index.
+     *
+     * @param completions the completions of the slot
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder completes(@NotNull CompletionIndex completions) {
+      Preconditions.checkNotNull(completions, "completions");
+      return completes((sender, label, args) -> completions);
+    }
+
+    /**
+     * Sets the tab completer of the last added slot, which gets invoked whenever the argument of
+     * the slot is being completed.
+     *
+     * @param completer the tab completer of the slot
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder completes(@NotNull TabCompleter completer) {
+      Preconditions.checkNotNull(completer, "completer");
+      Preconditions.checkState(!slots.isEmpty(), "There are no slots to complete");
+      int last = slots.size() - 1;
+      slots.set(last, slots.get(last).withCompleter(completer));
+      return this;
+    }
+
+    @NotNull
+    public ArgumentSchema build() {
+      return new ArgumentSchema(slots.toArray(new Slot[0]));
+    }
+
+    private Builder add(Slot slot) {
+      Preconditions.checkNotNull(slot.name, "name");
+      Preconditions.checkArgument(!slot.name.isEmpty(), "name can't be empty");
+      if (!slots.isEmpty()) {
+        Slot last = slots.get(slots.size() - 1);
+        Preconditions.checkState(
+            last.kind != GREEDY, "Greedy slot %s must be the last one", last.name);
+        Preconditions.checkState(
+            slot.optional || !last.optional,
+            "Required slot %s can't come after optional slot %s",
+            slot.name,
+            last.name);
+        for (Slot other : slots) {
+          Preconditions.checkArgument(
+              !other.name.equals(slot.name), "There is already a slot named %s", slot.name);
+        }
+      }
+      slots.add(slot);
+      return this;
+    }
+  }
+
+  private static final class Slot {
+
+    private final String name;
+    private final int kind;
+    private final boolean optional;
+    private final ArgumentResolver<?> resolver;
+    private final Object defaultValue;
+    private final long defaultPrimitive;
+    private final TabCompleter completer;
+
+    private Slot(
+        String name,
+        int kind,
+        boolean optional,
+        ArgumentResolver<?> resolver,
+        Object defaultValue,
+        long defaultPrimitive) {
+      this(name, kind, optional, resolver, defaultValue, defaultPrimitive, null);
+    }
+
+    private Slot(
+        String name,
+        int kind,
+        boolean optional,
+        ArgumentResolver<?> resolver,
+        Object defaultValue,
+        long defaultPrimitive,
+        TabCompleter completer) {
+      this.name = name;
+      this.kind = kind;
+      this.optional = optional;
+      this.resolver = resolver;
+      this.defaultValue = defaultValue;
+      this.defaultPrimitive = defaultPrimitive;
+      this.completer = completer;
+    }
+
+    private Slot withCompleter(TabCompleter completer) {
+      return new Slot(name, kind, optional, resolver, defaultValue, defaultPrimitive, completer);
+    }
+  }
+}
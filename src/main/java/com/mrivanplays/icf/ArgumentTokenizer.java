@@ -0,0 +1,500 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a tokenizer of command arguments, which understands quoted strings, escapes and
+ * flags. The arguments are read character by character in a single pass, without joining them
+ * first, and a argument which needs no changes is passed through without being copied.
+ *
+ * <ul>
+ *   <li>A argument starting with <code>"</code> or <code>'</code> lasts until the same quote
+ *       closes it, spaces included, e.g. <code>"hello world"</code>. Quotes inside a argument,
+ *       like in <code>don't</code>, are kept as they are.
+ *   <li><code>\</code> escapes the next character, e.g. <code>\"</code> or <code>a\ b</code>.
+ *   <li>Declared flags are recognized as <code>-f</code>, <code>-abc</code> for multiple short
+ *       flags, <code>--key</code>, <code>--key=value</code> and <code>--key value</code> or <code>
+ *       -k value</code> for flags with a value. Anything else starting with <code>-</code>, e.g.
+ *       negative numbers, stays a argument, and <code>--</code> stops the recognition of flags.
+ *   <li>With {@link Builder#greedyAfter(int)}, everything after that many arguments becomes the
+ *       last argument as it was typed, e.g. the message of a message command.
+ * </ul>
+ *
+ * <blockquote>
+ *
+ * <pre>
+ *   private static final ArgumentTokenizer TOKENIZER =
+ *       ArgumentTokenizer.builder().flag('s', "silent").valueFlag('d', "duration").greedyAfter(1)
+ *           .build();
+ *
+ *   public void execute(CommandSender cs, String label, CommandArguments args) {
+ *     ArgumentTokenizer.Tokens tokens = TOKENIZER.tokenize(args);
+ *     boolean silent = tokens.hasFlag('s');
+ *     String duration = tokens.getFlag("duration");
+ *     CommandArguments arguments = tokens.getArguments(); // the player and the reason
+ *   }
+ * </pre>
+ *
+ * </blockquote>
+ */
+public final class ArgumentTokenizer {
+
+  /**
+   * Creates a new builder of a tokenizer.
+   *
+   * @return builder
+   */
+  @NotNull
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private static final int NO_FLAG = -1;
+  private static final int NOT_GREEDY = -1;
+
+  // short flag names are ascii, so they're looked up by index
+  private final int[] shortFlags;
+  private final Map<String, Integer> longFlags;
+  private final boolean[] takesValue;
+  private final int greedyAfter;
+
+  private ArgumentTokenizer(Builder builder) {
+    this.shortFlags = builder.shortFlags.clone();
+    this.longFlags = new HashMap<>(builder.longFlags);
+    this.takesValue = new boolean[builder.takesValue.size()];
+    for (int i = 0; i < takesValue.length; i++) {
+      takesValue[i] = builder.takesValue.get(i);
+    }
+    this.greedyAfter = builder.greedyAfter;
+  }
+
+  /**
+   * Tokenizes the arguments left, consuming all of them.
+   *
+   * @param args the arguments to tokenize
+   * @return tokens
+   */
+  @NotNull
+  public Tokens tokenize(@NotNull CommandArguments args) {
+    Preconditions.checkNotNull(args, "args");
+    String[] input = args.getArgsLeft();
+    while (args.nextUnsafe() != null) {
+      // consumes the tokenized arguments
+    }
+    return tokenize(input == null ? new String[0] : input, args.getStats());
+  }
+
+  /**
+   * Tokenizes the specified raw arguments, which are the command split on spaces, the way Bukkit
+   * splits it.
+   *
+   * @param input the raw arguments
+   * @return tokens
+   */
+  @NotNull
+  public Tokens tokenize(@NotNull String[] input) {
+    return tokenize(input, null);
+  }
+
+  private Tokens tokenize(String[] input, CommandStats stats) {
+    Preconditions.checkNotNull(input, "input");
+    State state = new State(takesValue.length);
+    StringBuilder builder = null;
+    char quote = 0;
+    boolean escaped = false;
+    // whenever the token being read is exactly one of the raw arguments
+    boolean verbatim = true;
+    // whenever the token starts with a quote or a escape, so it can't be a flag
+    boolean literal = false;
+    int tokenStart = -1;
+    for (int arg = 0; arg < input.length; arg++) {
+      String raw = input[arg];
+      if (tokenStart == -1) {
+        if (raw.isEmpty()) {
+          // two spaces in a row
+          continue;
+        }
+        if (state.arguments.size() == greedyAfter && state.pendingFlag == NO_FLAG) {
+          state.arguments.add(join(input, arg));
+          break;
+        }
+        tokenStart = arg;
+        verbatim = true;
+        literal = false;
+        if (builder != null) {
+          builder.setLength(0);
+        }
+      } else {
+        // the space Bukkit split on is a part of the quoted or escaped token, which is copied
+        builder.append(' ');
+      }
+      for (int i = 0, length = raw.length(); i < length; i++) {
+        char c = raw.charAt(i);
+        if (escaped) {
+          escaped = false;
+          builder.append(c);
+          continue;
+        }
+        if (c == '\\') {
+          builder = startCopy(builder, raw, i, verbatim);
+          verbatim = false;
+          literal |= i == 0 && arg == tokenStart;
+          escaped = true;
+          continue;
+        }
+        if (quote != 0) {
+          if (c == quote) {
+            quote = 0;
+          } else {
+            builder.append(c);
+          }
+          continue;
+        }
+        if (i == 0 && arg == tokenStart && (c == '"' || c == '\'')) {
+          builder = startCopy(builder, raw, i, verbatim);
+          verbatim = false;
+          literal = true;
+          quote = c;
+          continue;
+        }
+        if (!verbatim) {
+          builder.append(c);
+        }
+      }
+      if (escaped) {
+        // a escaped space, which Bukkit split on
+        escaped = false;
+        continue;
+      }
+      if (quote != 0) {
+        continue;
+      }
+      state.accept(verbatim ? raw : builder.toString(), literal);
+      tokenStart = -1;
+    }
+    if (tokenStart != -1) {
+      // the quote was never closed, so it lasts until the end
+      state.accept(verbatim ? input[tokenStart] : builder.toString(), literal);
+    }
+    return new Tokens(
+        this, state.arguments.toArray(new String[0]), state.present, state.values, stats);
+  }
+
+  // copies what was passed through so far, once the token stops being the raw argument as is
+  private static StringBuilder startCopy(
+      StringBuilder builder, String raw, int index, boolean verbatim) {
+    if (builder == null) {
+      builder = new StringBuilder();
+    }
+    if (verbatim) {
+      builder.append(raw, 0, index);
+    }
+    return builder;
+  }
+
+  private static String join(String[] input, int from) {
+    if (from == input.length - 1) {
+      return input[from];
+    }
+    StringBuilder builder = new StringBuilder();
+    for (int i = from; i < input.length; i++) {
+      if (i != from) {
+        builder.append(' ');
+      }
+      builder.append(input[i]);
+    }
+    return builder.toString();
+  }
+
+  private int flagIndex(char name) {
+    return name < shortFlags.length ? shortFlags[name] : NO_FLAG;
+  }
+
+  private int flagIndex(String name) {
+    Integer index = longFlags.get(name);
+    return index == null ? NO_FLAG : index;
+  }
+
+  private final class State {
+
+    private final List<String> arguments = new ArrayList<>();
+    private final boolean[] present;
+    private final String[] values;
+    private int pendingFlag = NO_FLAG;
+    private boolean flagsEnded;
+
+    State(int flags) {
+      present = new boolean[flags];
+      values = new String[flags];
+    }
+
+    void accept(String token, boolean literal) {
+      if (pendingFlag != NO_FLAG) {
+        values[pendingFlag] = token;
+        pendingFlag = NO_FLAG;
+        return;
+      }
+      if (literal || flagsEnded || token.length() < 2 || token.charAt(0) != '-') {
+        arguments.add(token);
+        return;
+      }
+      if (token.charAt(1) == '-') {
+        if (token.length() == 2) {
+          flagsEnded = true;
+        } else if (!acceptLong(token)) {
+          arguments.add(token);
+        }
+      } else if (!acceptShort(token)) {
+        arguments.add(token);
+      }
+    }
+
+    private boolean acceptLong(String token) {
+      int equals = token.indexOf('=');
+      String name = equals == -1 ? token.substring(2) : token.substring(2, equals);
+      int flag = flagIndex(name);
+      if (flag == NO_FLAG || (equals != -1 && !takesValue[flag])) {
+        return false;
+      }
+      present[flag] = true;
+      if (equals != -1) {
+        values[flag] = token.substring(equals + 1);
+      } else if (takesValue[flag]) {
+        pendingFlag = flag;
+      }
+      return true;
+    }
+
+    private boolean acceptShort(String token) {
+      // all of them need to be flags, and only the last one may take a value
+      int length = token.length();
+      for (int i = 1; i < length; i++) {
+        int flag = flagIndex(token.charAt(i));
+        if (flag == NO_FLAG || (takesValue[flag] && i != length - 1)) {
+          return false;
+        }
+      }
+      for (int i = 1; i < length; i++) {
+        int flag = flagIndex(token.charAt(i));
+        present[flag] = true;
+        if (takesValue[flag]) {
+          pendingFlag = flag;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** Represents the arguments and flags a {@link ArgumentTokenizer} read. */
+  public static final class Tokens {
+
+    private final ArgumentTokenizer tokenizer;
+    private final String[] arguments;
+    private final boolean[] present;
+    private final String[] values;
+    private final CommandStats stats;
+
+    private Tokens(
+        ArgumentTokenizer tokenizer,
+        String[] arguments,
+        boolean[] present,
+        String[] values,
+        CommandStats stats) {
+      this.tokenizer = tokenizer;
+      this.arguments = arguments;
+      this.present = present;
+      this.values = values;
+      this.stats = stats;
+    }
+
+    /**
+     * Returns new command arguments of the arguments which aren't flags or flag values.
+     *
+     * @return command arguments
+     */
+    @NotNull
+    public CommandArguments getArguments() {
+      return new CommandArguments(arguments, stats);
+    }
+
+    /**
+     * Returns whenever the flag with the specified short name was typed.
+     *
+     * @param name the short name of the flag
+     * @return <code>true</code> if typed, <code>false</code> otherwise
+     */
+    public boolean hasFlag(char name) {
+      return isPresent(checkFlag(tokenizer.flagIndex(name), name));
+    }
+
+    /**
+     * Returns whenever the flag with the specified long name was typed.
+     *
+     * @param name the long name of the flag
+     * @return <code>true</code> if typed, <code>false</code> otherwise
+     */
+    public boolean hasFlag(@NotNull String name) {
+      return isPresent(checkFlag(tokenizer.flagIndex(name), name));
+    }
+
+    /**
+     * Gets the value of the flag with the specified short name.
+     *
+     * @param name the short name of the flag
+     * @return value, or null if the flag wasn't typed or had no value
+     */
+    @Nullable
+    public String getFlag(char name) {
+      return values[checkFlag(tokenizer.flagIndex(name), name)];
+    }
+
+    /**
+     * Gets the value of the flag with the specified long name.
+     *
+     * @param name the long name of the flag
+     * @return value, or null if the flag wasn't typed or had no value
+     */
+    @Nullable
+    public String getFlag(@NotNull String name) {
+      return values[checkFlag(tokenizer.flagIndex(name), name)];
+    }
+
+    private boolean isPresent(int flag) {
+      return present[flag];
+    }
+
+    private static int checkFlag(int flag, Object name) {
+      Preconditions.checkArgument(flag != NO_FLAG, "There is no flag named %s", name);
+      return flag;
+    }
+  }
+
+  /** Represents a builder of a {@link ArgumentTokenizer}. */
+  public static final class Builder {
+
+    private final int[] shortFlags = new int[128];
+    private final Map<String, Integer> longFlags = new HashMap<>();
+    private final List<Boolean> takesValue = new ArrayList<>();
+    private int greedyAfter = NOT_GREEDY;
+
+    private Builder() {
+      Arrays.fill(shortFlags, NO_FLAG);
+    }
+
+    /**
+     * Declares a flag without a value, e.g. <code>-s</code> or <code>--silent</code>.
+     *
+     * @param shortName the short name, a ascii letter
+     * @param longName the long name, or null if there is none
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder flag(char shortName, @Nullable String longName) {
+      return add(shortName, longName, false);
+    }
+
+    /**
+     * Declares a flag without a value, which only has a long name, e.g. <code>--silent</code>.
+     *
+     * @param longName the long name
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder flag(@NotNull String longName) {
+      Preconditions.checkNotNull(longName, "longName");
+      return add((char) 0, longName, false);
+    }
+
+    /**
+     * Declares a flag with a value, e.g. <code>-d 1h</code> or <code>--duration=1h</code>.
+     *
+     * @param shortName the short name, a ascii letter
+     * @param longName the long name, or null if there is none
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder valueFlag(char shortName, @Nullable String longName) {
+      return add(shortName, longName, true);
+    }
+
+    /**
+     * Declares a flag with a value, which only has a long name, e.g. <code>--duration=1h</code>.
+     *
+     * @param longName the long name
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder valueFlag(@NotNull String longName) {
+      Preconditions.checkNotNull(longName, "longName");
+      return add((char) 0, longName, true);
+    }
+
+    /**
+     * Makes everything after the specified amount of arguments the last argument, as it was
+     * typed. Quotes, escapes and flags in it are not read.
+     *
+     * @param arguments the amount of arguments before the greedy one
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder greedyAfter(int arguments) {
+      Preconditions.checkArgument(arguments >= 0, "arguments can't be negative");
+      this.greedyAfter = arguments;
+      return this;
+    }
+
+    @NotNull
+    public ArgumentTokenizer build() {
+      return new ArgumentTokenizer(this);
+    }
+
+    private Builder add(char shortName, String longName, boolean value) {
+      int index = takesValue.size();
+      if (shortName != 0) {
+        Preconditions.checkArgument(
+            (shortName >= 'a' && shortName <= 'z') || (shortName >= 'A' && shortName <= 'Z'),
+            "Short flag names must be ascii letters");
+        Preconditions.checkArgument(
+            shortFlags[shortName] == NO_FLAG, "Duplicate flag -%s", shortName);
+        shortFlags[shortName] = index;
+      }
+      if (longName != null) {
+        Preconditions.checkArgument(
+            !longName.isEmpty() && longName.indexOf('=') == -1 && !longName.startsWith("-"),
+            "Invalid long flag name %s",
+            longName);
+        Preconditions.checkArgument(
+            longFlags.putIfAbsent(longName, index) == null, "Duplicate flag --%s", longName);
+      }
+      takesValue.add(value);
+      return this;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a argument resolver which resolves a single argument off the server thread, e.g. when
+ * it needs to be looked up in a database or from the web.
+ *
+ * <p>This is a functional interface whose abstract method is {@link #resolveAsync(String)}
+ *
+ * @param <T> resolved to type
+ * @see CommandArguments#nextAsync(AsyncArgumentResolver)
+ */
+@FunctionalInterface
+public interface AsyncArgumentResolver<T> {
+
+  /**
+   * Resolves the input argument into the type this resolver resolves. The future may complete
+   * with null, or exceptionally, which will trigger {@link RestArgumentAction#orElse(Consumer)}
+   * with {@link FailReason} of <code>ARGUMENT_PARSED_NULL</code> or <code>
+   * ARGUMENT_PARSED_NOT_TYPE</code> respectively if used upon {@link
+   * CommandArguments#nextAsync(AsyncArgumentResolver)}.
+   *
+   * @param input the input argument to resolve
+   * @return future of the resolved argument
+   */
+  @NotNull
+  CompletableFuture<T> resolveAsync(@NotNull String input);
+}
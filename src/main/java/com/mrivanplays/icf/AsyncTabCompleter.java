@@ -0,0 +1,59 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a tab completer, which computes the completions off the server thread, e.g. when they
+ * come from a database.
+ *
+ * <p>The completion never waits for the returned future. Until it completes, the sender gets the
+ * completions of its last completed request which had the same arguments before the one being
+ * completed, or no completions. A new request from the same sender cancels the previous one if it
+ * didn't complete yet, so the returned future should not be shared between requests. Cancelling
+ * only completes the future, it doesn't stop the work computing it, e.g. a task which is already
+ * running on the executor. Long computations can check {@link CompletableFuture#isCancelled()} of
+ * the future they complete to stop early.
+ */
+public interface AsyncTabCompleter {
+
+  /**
+   * Needs to return a future of matches on the specified argument length. The future may complete
+   * with null.
+   *
+   * @param sender the sender which invoked the completion
+   * @param label the label of which the completion was invoked
+   * @param args the arguments which were invoked by the sender
+   * @param executor the executor the completions should be computed on, which can be configured
+   *     with {@link CommandManager#setTabCompleteExecutor(Executor)}
+   * @return future of matches on the specified argument length
+   */
+  @NotNull
+  CompletableFuture<Iterable<String>> tabCompleteAsync(
+      @NotNull CommandSender sender,
+      @NotNull String label,
+      @NotNull CommandArguments args,
+      @NotNull Executor executor);
+}
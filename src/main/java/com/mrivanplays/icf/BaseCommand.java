@@ -22,14 +22,25 @@
 */
 package com.mrivanplays.icf;
 
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-/** Represents a normal {@link ICFCommand} with a storage of its name and aliases. */
+/**
+ * Represents a normal {@link ICFCommand} with a storage of its name and aliases.
+ *
+ * <p>A base command may have subcommands, which get invoked instead of it when the first argument
+ * is the name or one of the aliases of a subcommand. The command itself gets invoked when no
+ * subcommand matches.
+ */
 public abstract class BaseCommand extends ICFCommand {
 
   private final String name;
   private String[] aliases;
+  private final List<BaseCommand> subcommands = new ArrayList<>();
 
   public BaseCommand(@NotNull String name) {
     this.name = name;
@@ -82,4 +93,30 @@ public abstract class BaseCommand extends ICFCommand {
   public String[] getAliases() {
     return aliases;
   }
+
+  /**
+   * Adds a subcommand to this command. The subcommand gets invoked with the arguments after its
+   * name, and only if the sender is allowed to use this command as well. Subcommands must be added
+   * before the command gets registered, as they get compiled at registration.
+   *
+   * @param subcommand the subcommand you want to add
+   * @return this instance, for chaining
+   */
+  @NotNull
+  public BaseCommand addSubcommand(@NotNull BaseCommand subcommand) {
+    Preconditions.checkNotNull(subcommand, "subcommand");
+    Preconditions.checkArgument(subcommand != this, "A command can't be a subcommand of itself");
+    subcommands.add(subcommand);
+    return this;
+  }
+
+  /**
+   * Returns the subcommands of this command.
+   *
+   * @return subcommands
+   */
+  @NotNull
+  public List<BaseCommand> getSubcommands() {
+    return Collections.unmodifiableList(subcommands);
+  }
 }
@@ -20,24 +20,49 @@
 **/
 package com.mrivanplays.icf;
 
-import java.util.ArrayList;
+import com.google.common.base.Preconditions;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-/** Represents a class, containing the actual argument resolving of a command. */
+/**
+ * Represents a class, containing the actual argument resolving of a command.
+ *
+ * <p>The arguments are not copied, instead a cursor is being moved over the original array
+ * whenever a argument is being got. This makes consuming arguments cheap and allows you to {@link
+ * #peek()}, {@link #mark()}, {@link #reset()} and {@link #rewind()} the arguments.
+ */
 public final class CommandArguments {
 
-  private final List<String> args;
+  private String[] args;
+  private int cursor;
+  private int mark;
+  private boolean owned;
+  private final CommandStats stats;
 
   public CommandArguments(String[] args) {
-    this(new ArrayList<>(Arrays.asList(args)));
+    this(args, null);
   }
 
-  private CommandArguments(List<String> args) {
+  /**
+   * Creates new command arguments, which record the arguments that failed to be got in the
+   * specified statistics.
+   *
+   * @param args the arguments
+   * @param stats the statistics of the command, or null to not record
+   */
+  public CommandArguments(String[] args, @Nullable CommandStats stats) {
+    this(args, 0, false, stats);
+  }
+
+  private CommandArguments(String[] args, int cursor, boolean owned, CommandStats stats) {
     this.args = args;
+    this.cursor = cursor;
+    this.mark = cursor;
+    this.owned = owned;
+    this.stats = stats;
   }
 
   /**
@@ -51,7 +76,10 @@ public final class CommandArguments {
    */
   @Nullable
   public String nextUnsafe() {
-    return getArgUnsafe(0);
+    if (cursor >= args.length) {
+      return null;
+    }
+    return args[cursor++];
   }
 
   /**
@@ -64,6 +92,77 @@ public final class CommandArguments {
     return Optional.ofNullable(nextUnsafe());
   }
 
+  /**
+   * Gets the next argument without decrementing the {@link #size()}.
+   *
+   * @return the next string argument or null if there are no arguments left
+   */
+  @Nullable
+  public String peek() {
+    return peek(0);
+  }
+
+  /**
+   * Gets the specified argument, relative to the next one, without decrementing the {@link
+   * #size()}.
+   *
+   * @param arg the argument you want to get
+   * @return the string argument or null if there is no such argument
+   */
+  @Nullable
+  public String peek(int arg) {
+    int index = cursor + arg;
+    if (arg < 0 || index >= args.length) {
+      return null;
+    }
+    return args[index];
+  }
+
+  /**
+   * Returns whenever there are any arguments left.
+   *
+   * @return <code>true</code> if there are arguments left, <code>false</code> otherwise
+   */
+  public boolean hasNext() {
+    return cursor < args.length;
+  }
+
+  /**
+   * Marks the current position, so it can be later returned to with {@link #reset()}.
+   *
+   * @return this instance, for chaining
+   */
+  @NotNull
+  public CommandArguments mark() {
+    mark = cursor;
+    return this;
+  }
+
+  /**
+   * Returns to the position last marked with {@link #mark()}, giving back all the arguments got
+   * since then. If {@link #mark()} was never called, this is the position this instance was
+   * created at.
+   *
+   * @return this instance, for chaining
+   */
+  @NotNull
+  public CommandArguments reset() {
+    cursor = mark;
+    return this;
+  }
+
+  /**
+   * Returns to the very first argument, giving back all the arguments got.
+   *
+   * @return this instance, for chaining
+   */
+  @NotNull
+  public CommandArguments rewind() {
+    cursor = 0;
+    mark = 0;
+    return this;
+  }
+
   /**
    * Gets the specified argument while decrementing the {@link #size()}. This method is unsafe as
    * the method may return null if there are no arguments and the safe alternative of this method is
@@ -74,10 +173,22 @@ public final class CommandArguments {
    */
   @Nullable
   public String getArgUnsafe(int arg) {
-    if (args.size() == 0) {
+    if (arg == 0) {
+      return nextUnsafe();
+    }
+    int index = cursor + arg;
+    if (arg < 0 || index >= args.length) {
       return null;
     }
-    return args.remove(arg);
+    if (!owned) {
+      args = args.clone();
+      owned = true;
+    }
+    // move the got argument in the consumed part, so the ones before it stay in order
+    String value = args[index];
+    System.arraycopy(args, cursor, args, cursor + 1, arg);
+    args[cursor++] = value;
+    return value;
   }
 
   /**
@@ -125,36 +236,191 @@ public final class CommandArguments {
    */
   @NotNull
   public <T> ArgumentOptional<T> next(ArgumentResolver<T> resolver) {
-    if (args.size() == 0) {
-      return ArgumentOptional.of(null, FailReason.ARGUMENT_NOT_TYPED);
+    if (!hasNext()) {
+      return fail(FailReason.ARGUMENT_NOT_TYPED);
     }
+    String input = nextUnsafe();
     try {
-      T resolved = resolver.resolve(nextUnsafe());
+      T resolved = resolver.resolve(input);
       if (resolved == null) {
-        return ArgumentOptional.of(null, FailReason.ARGUMENT_PARSED_NULL);
+        return fail(FailReason.ARGUMENT_PARSED_NULL, resolver, input);
       }
       return ArgumentOptional.of(resolved, FailReason.NO_FAIL_REASON);
     } catch (Throwable error) {
-      return ArgumentOptional.of(null, FailReason.ARGUMENT_PARSED_NOT_TYPE);
+      return fail(FailReason.ARGUMENT_PARSED_NOT_TYPE, resolver, input);
     }
   }
 
+  /**
+   * Resolves the next argument to the specified asynchronous resolver, without waiting for it. The
+   * argument is got right away, so the arguments after it can be got before the future completes.
+   *
+   * <p>The future completes on the thread the resolver completes it on, which usually isn't the
+   * server thread, so use {@link CommandManager#runSync(Runnable)} before using the Bukkit API with
+   * the resolved argument. Like the other <code>next</code> methods, a argument which failed to be
+   * resolved is recorded in the {@link #getStats()}, once the future completes. Be careful when
+   * using the methods with <code>next</code> in their name!
+   *
+   * @param resolver the asynchronous resolver of the argument you want to resolve
+   * @param <T> the type of the argument
+   * @return future of a empty {@link ArgumentOptional} if argument not parsed, or the argument
+   *     parsed is not the type, or the type parsed is null.
+   */
+  @NotNull
+  public <T> CompletableFuture<ArgumentOptional<T>> nextAsync(
+      @NotNull AsyncArgumentResolver<T> resolver) {
+    Preconditions.checkNotNull(resolver, "resolver");
+    if (!hasNext()) {
+      return CompletableFuture.completedFuture(fail(FailReason.ARGUMENT_NOT_TYPED));
+    }
+    CompletableFuture<T> future;
+    try {
+      future = resolver.resolveAsync(nextUnsafe());
+    } catch (Throwable error) {
+      return CompletableFuture.completedFuture(fail(FailReason.ARGUMENT_PARSED_NOT_TYPE));
+    }
+    return future.handle(
+        (resolved, error) -> {
+          if (error != null) {
+            return fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+          }
+          if (resolved == null) {
+            return fail(FailReason.ARGUMENT_PARSED_NULL);
+          }
+          return ArgumentOptional.of(resolved, FailReason.NO_FAIL_REASON);
+        });
+  }
+
+  /**
+   * Resolves the next argument to the specified list resolver. If a element of the list fails to
+   * be resolved, the returned optional has its index, see {@link ArgumentOptional#getFailIndex()}.
+   * Be careful when using the methods with <code>next</code> in their name!
+   *
+   * @param resolver the resolver of the list
+   * @param <T> the type of the list
+   * @return empty {@link ArgumentOptional} if argument not typed, or a element of the list failed
+   *     to be resolved, or the list has too many elements
+   */
+  @NotNull
+  public <T> ArgumentOptional<T> nextList(@NotNull ListResolver<T> resolver) {
+    Preconditions.checkNotNull(resolver, "resolver");
+    if (!hasNext()) {
+      return fail(FailReason.ARGUMENT_NOT_TYPED);
+    }
+    cursor++;
+    return list(resolver, cursor - 1);
+  }
+
+  /**
+   * Resolves all of the remaining arguments into a single list, with the specified list resolver,
+   * e.g. <code>/kick Notch jeb_ Dinnerbone</code>. Every argument may contain more elements,
+   * separated as usual. If a element fails to be resolved, the returned optional has its index
+   * across all of the arguments, see {@link ArgumentOptional#getFailIndex()}. Be careful when using
+   * the methods with <code>next</code> in their name!
+   *
+   * @param resolver the resolver of the list
+   * @param <T> the type of the list
+   * @return empty {@link ArgumentOptional} if no argument is left, or a element of the list failed
+   *     to be resolved, or the list has too many elements
+   */
+  @NotNull
+  public <T> ArgumentOptional<T> nextRemainingList(@NotNull ListResolver<T> resolver) {
+    Preconditions.checkNotNull(resolver, "resolver");
+    if (!hasNext()) {
+      return fail(FailReason.ARGUMENT_NOT_TYPED);
+    }
+    int from = cursor;
+    cursor = args.length;
+    return list(resolver, from);
+  }
+
+  private <T> ArgumentOptional<T> list(ListResolver<T> resolver, int from) {
+    ArgumentOptional<T> resolved = resolver.parse(args, from, cursor);
+    if (!resolved.isPresent()) {
+      recordFailure(resolved.failReason);
+    }
+    return resolved;
+  }
+
   @NotNull
   public ArgumentOptional<Integer> nextInt() {
-    return next(ArgumentResolvers.INTEGER);
+    return nextIntPrimitive().boxed();
+  }
+
+  /**
+   * Resolves the next argument to a <code>int</code> without boxing it. Input which is not a
+   * number or is out of range gets reported with {@link FailReason#ARGUMENT_PARSED_NOT_TYPE}
+   * without a exception being thrown. Be careful when using the methods with <code>next</code> in
+   * their name!
+   *
+   * @return int argument optional
+   */
+  @NotNull
+  public IntArgumentOptional nextIntPrimitive() {
+    if (!hasNext()) {
+      recordFailure(FailReason.ARGUMENT_NOT_TYPED);
+      return IntArgumentOptional.empty(FailReason.ARGUMENT_NOT_TYPED);
+    }
+    IntArgumentOptional value = PrimitiveParsers.parseInt(args[cursor++]);
+    if (!value.isPresent()) {
+      recordFailure(value.failReason);
+    }
+    return value;
+  }
+
+  /**
+   * Resolves the next argument to a <code>long</code> without boxing it. Input which is not a
+   * number or is out of range gets reported with {@link FailReason#ARGUMENT_PARSED_NOT_TYPE}
+   * without a exception being thrown. Be careful when using the methods with <code>next</code> in
+   * their name!
+   *
+   * @return long argument optional
+   */
+  @NotNull
+  public LongArgumentOptional nextLongPrimitive() {
+    if (!hasNext()) {
+      recordFailure(FailReason.ARGUMENT_NOT_TYPED);
+      return LongArgumentOptional.empty(FailReason.ARGUMENT_NOT_TYPED);
+    }
+    LongArgumentOptional value = PrimitiveParsers.parseLong(args[cursor++]);
+    if (!value.isPresent()) {
+      recordFailure(value.failReason);
+    }
+    return value;
+  }
+
+  /**
+   * Resolves the next argument to a <code>double</code> without boxing it. Only plain decimal
+   * notation (e.g. <code>-1.5</code> or <code>2e3</code>) is accepted, anything else gets reported
+   * with {@link FailReason#ARGUMENT_PARSED_NOT_TYPE} without a exception being thrown. Be careful
+   * when using the methods with <code>next</code> in their name!
+   *
+   * @return double argument optional
+   */
+  @NotNull
+  public DoubleArgumentOptional nextDoublePrimitive() {
+    if (!hasNext()) {
+      recordFailure(FailReason.ARGUMENT_NOT_TYPED);
+      return DoubleArgumentOptional.empty(FailReason.ARGUMENT_NOT_TYPED);
+    }
+    DoubleArgumentOptional value = PrimitiveParsers.parseDouble(args[cursor++]);
+    if (!value.isPresent()) {
+      recordFailure(value.failReason);
+    }
+    return value;
   }
 
   @NotNull
   public ArgumentOptional<String> nextString() {
-    if (args.size() == 0) {
-      return ArgumentOptional.of(null, FailReason.ARGUMENT_NOT_TYPED);
+    if (!hasNext()) {
+      return fail(FailReason.ARGUMENT_NOT_TYPED);
     }
     return ArgumentOptional.of(nextUnsafe(), FailReason.NO_FAIL_REASON);
   }
 
   @NotNull
   public ArgumentOptional<Double> nextDouble() {
-    return next(ArgumentResolvers.DOUBLE);
+    return nextDoublePrimitive().boxed();
   }
 
   /**
@@ -176,10 +442,13 @@ public final class CommandArguments {
    */
   public String joinArguments(int from, char separator) {
     StringBuilder builder = new StringBuilder();
-    for (int i = from; i < args.size(); i++) {
-      builder.append(args.get(i)).append(separator);
+    for (int i = cursor + from; i < args.length; i++) {
+      if (i != cursor + from) {
+        builder.append(separator);
+      }
+      builder.append(args[i]);
     }
-    return builder.substring(0, builder.length() - 1);
+    return builder.toString();
   }
 
   /**
@@ -191,20 +460,23 @@ public final class CommandArguments {
    */
   public String joinArguments(int from, CharSequence separator) {
     StringBuilder builder = new StringBuilder();
-    for (int i = from; i < args.size(); i++) {
-      builder.append(args.get(i)).append(separator);
+    for (int i = cursor + from; i < args.length; i++) {
+      if (i != cursor + from) {
+        builder.append(separator);
+      }
+      builder.append(args[i]);
     }
-    return builder.substring(0, builder.length() - 1);
+    return builder.toString();
   }
 
   /**
    * Returns the count of the specified arguments. This count will decrement whenever a argument was
-   * got from any of the methods except {@link #joinArguments(int, char)}
+   * got from any of the methods except {@link #joinArguments(int, char)} and {@link #peek()}
    *
    * @return specified arguments count
    */
   public int size() {
-    return args.size();
+    return args.length - cursor;
   }
 
   /**
@@ -217,19 +489,56 @@ public final class CommandArguments {
    */
   @Nullable
   public String[] getArgsLeft() {
-    if (args.isEmpty()) {
+    if (!hasNext()) {
       return null;
     }
-    return args.toArray(new String[0]);
+    return Arrays.copyOfRange(args, cursor, args.length);
   }
 
   /**
-   * Creates a new copy of this command arguments.
+   * Creates a new copy of this command arguments. The copy starts at the current position and
+   * moves independently of this instance, without copying the arguments.
    *
    * @return instance copy
    */
   @NotNull
   public CommandArguments copy() {
-    return new CommandArguments(args);
+    // both instances now share the array, so any of them needs to copy it before modifying it
+    owned = false;
+    return new CommandArguments(args, cursor, false, stats);
+  }
+
+  /**
+   * Returns the statistics the arguments which failed to be got are recorded in.
+   *
+   * @return command statistics, or null if not recorded
+   */
+  @Nullable
+  public CommandStats getStats() {
+    return stats;
+  }
+
+  // the argument got last, which is the one a failed next* call was about, unless not typed
+  String previous() {
+    return cursor > 0 ? args[cursor - 1] : null;
+  }
+
+  void recordFailure(FailReason reason) {
+    if (stats != null) {
+      stats.recordFailure(reason);
+    }
+  }
+
+  private <T> ArgumentOptional<T> fail(FailReason reason) {
+    recordFailure(reason);
+    return ArgumentOptional.empty(reason);
+  }
+
+  private <T> ArgumentOptional<T> fail(
+      FailReason reason, ArgumentResolver<?> resolver, String input) {
+    recordFailure(reason);
+    return resolver instanceof SuggestionProvider
+        ? ArgumentOptional.failed(reason, (SuggestionProvider) resolver, input)
+        : ArgumentOptional.empty(reason);
   }
 }
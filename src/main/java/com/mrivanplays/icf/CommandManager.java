@@ -20,20 +20,59 @@
 **/
 package com.mrivanplays.icf;
 
+import com.google.common.base.Preconditions;
+import com.mrivanplays.icf.annotations.Command;
 import com.mrivanplays.icf.external.BukkitCommandMapBridge;
 import com.mrivanplays.icf.external.CommandSendListener;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
+import org.bukkit.GameMode;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /** Represents a manager of commands and argument resolvers. */
 public final class CommandManager {
 
   private final BukkitCommandMapBridge mapBridge;
-  private String noPermissionMessage;
-  private String noConsoleMessage;
+  private MessageTemplate noPermissionMessage;
+  private MessageTemplate noConsoleMessage;
+  private MessageTemplate usageMessage;
+  private MessageTemplate invalidArgumentMessage;
+  private MessageTemplate didYouMeanMessage;
+  private int maxTabCompletions = Integer.MAX_VALUE;
+  private TabCompletionCache tabCompletionCache;
+  private Executor tabCompleteExecutor = ForkJoinPool.commonPool();
+  private Executor commandExecutor;
+  // set while the command executor is the default one, which this manager has to shut down
+  private ThreadPoolExecutor defaultCommandExecutor;
+  private MessageTemplate busyMessage;
+  private MessageTemplate rateLimitedMessage;
+  private volatile PermissionCache permissionCache;
+  private PlayerIndex playerIndex;
+  private volatile CommandMetrics metrics;
+  private volatile CommandWatchdog watchdog;
+  private final Map<Class<?>, ArgumentResolver<?>> argumentResolvers = new HashMap<>();
   private final Plugin plugin;
 
   public CommandManager(@NotNull Plugin plugin) {
@@ -43,6 +82,18 @@ public final class CommandManager {
         "&cYou don't have permission to perform this command"); // default no permission message
     setNoConsoleMessage(
         "&cThe command you've tried to run is player only."); // default no console message
+    setUsageMessage("&cUsage: /{label} {usage}"); // default usage message
+    setInvalidArgumentMessage(
+        "&c'{argument}' is not valid. Usage: /{label} {usage}"); // default invalid argument message
+    setDidYouMeanMessage("&7Did you mean {suggestions}?"); // default did you mean message
+    setBusyMessage(
+        "&cThe server is busy right now, please try again later."); // default busy message
+    setRateLimitedMessage(
+        "&cPlease wait {time} before using this command again."); // default rate limited message
+    registerArgumentResolver(Float.class, ArgumentResolvers.FLOAT);
+    registerArgumentResolver(Player.class, ArgumentResolvers.PLAYER);
+    registerArgumentResolver(OfflinePlayer.class, ArgumentResolvers.PLAYER_OFFLINE);
+    registerArgumentResolver(GameMode.class, ArgumentResolvers.GAME_MODE);
   }
 
   /**
@@ -51,15 +102,36 @@ public final class CommandManager {
    * @param command the command you want to register
    */
   public void registerCommand(@NotNull BaseCommand command) {
-    if (command.getAliases() != null) {
+    registerCommand(command, aliasesOf(command));
+  }
+
+  /**
+   * Registers all of the specified {@link BaseCommand}s at once. Unlike registering them one by
+   * one, the commands sent to the online players get updated only once, after all of them are
+   * registered.
+   *
+   * @param commands the commands you want to register
+   */
+  public void registerCommands(@NotNull Collection<? extends BaseCommand> commands) {
+    List<BaseCommand> toRegister = new ArrayList<>(commands.size());
+    List<String[]> aliases = new ArrayList<>(commands.size());
+    for (BaseCommand command : commands) {
+      bind(command);
+      toRegister.add(command);
+      aliases.add(aliasesOf(command));
+    }
+    mapBridge.registerCommands(toRegister, aliases);
+  }
+
+  private static String[] aliasesOf(BaseCommand command) {
+    if (command.getAliases() != null && command.getAliases().length > 0) {
       String[] aliases = Arrays.copyOf(command.getAliases(), command.getAliases().length + 1);
       String firstAlias = aliases[0];
       aliases[0] = command.getName();
-      aliases[command.getAliases().length + 1] = firstAlias;
-      registerCommand(command, aliases);
-    } else {
-      registerCommand(command, command.getName());
+      aliases[command.getAliases().length] = firstAlias;
+      return aliases;
     }
+    return new String[] {command.getName()};
   }
 
   /**
@@ -69,9 +141,134 @@ public final class CommandManager {
    * @param aliases the command names/aliases of which the command will get invoked
    */
   public void registerCommand(@NotNull ICFCommand command, @NotNull String... aliases) {
+    bind(command);
     mapBridge.registerCommand(command, aliases);
   }
 
+  /**
+   * Unregisters the specified command, removing every label it was registered with, including the
+   * ones prefixed with the plugin name, from the server. The cached tab completions of it and its
+   * subcommands get removed as well.
+   *
+   * @param command the command you want to unregister
+   * @return <code>true</code> if the command was registered
+   */
+  public boolean unregisterCommand(@NotNull ICFCommand command) {
+    Preconditions.checkNotNull(command, "command");
+    return unregisterCommands(Collections.singletonList(command));
+  }
+
+  /**
+   * Unregisters all of the specified commands at once. Unlike unregistering them one by one, the
+   * commands sent to the online players get updated only once, after all of them are
+   * unregistered. Useful for dynamic command sets, like the ones of a minigame.
+   *
+   * @param commands the commands you want to unregister
+   * @return <code>true</code> if any of the commands was registered
+   */
+  public boolean unregisterCommands(@NotNull Collection<? extends ICFCommand> commands) {
+    Preconditions.checkNotNull(commands, "commands");
+    return forget(mapBridge.unregisterCommands(commands));
+  }
+
+  /**
+   * Unregisters all of the commands registered through this command manager, for example when the
+   * plugin gets disabled or reloaded.
+   *
+   * @return <code>true</code> if there were any commands registered
+   */
+  public boolean unregisterAll() {
+    return forget(mapBridge.unregisterAll());
+  }
+
+  /**
+   * Suggests the closest names and aliases of the commands registered through this command manager
+   * to the specified label.
+   *
+   * @param label the label which isn't a registered command
+   * @return suggestions, the closest first
+   */
+  @NotNull
+  public List<String> suggestCommands(@NotNull String label) {
+    Preconditions.checkNotNull(label, "label");
+    return mapBridge.suggestLabels(label);
+  }
+
+  private boolean forget(Map<ICFCommand, List<String>> removed) {
+    CommandMetrics metrics = this.metrics;
+    TabCompletionCache tabCompletionCache = this.tabCompletionCache;
+    for (Map.Entry<ICFCommand, List<String>> entry : removed.entrySet()) {
+      if (metrics != null) {
+        for (String label : entry.getValue()) {
+          metrics.removeStats(label);
+        }
+      }
+      if (tabCompletionCache != null) {
+        // covers the subcommands too
+        tabCompletionCache.invalidate(entry.getKey());
+      }
+      unbind(entry.getKey());
+    }
+    return !removed.isEmpty();
+  }
+
+  private void bind(ICFCommand command) {
+    command.commandManager = this;
+    if (command instanceof BaseCommand) {
+      for (BaseCommand subcommand : ((BaseCommand) command).getSubcommands()) {
+        bind(subcommand);
+      }
+    }
+  }
+
+  private void unbind(ICFCommand command) {
+    // only if no other command manager registered it since
+    if (command.commandManager == this) {
+      command.commandManager = null;
+    }
+    if (command instanceof BaseCommand) {
+      for (BaseCommand subcommand : ((BaseCommand) command).getSubcommands()) {
+        unbind(subcommand);
+      }
+    }
+  }
+
+  /**
+   * Registers a new command, compiled from the specified instance of a class annotated with {@link
+   * Command}. The handler methods get bound once, here, and every parameter type must have a
+   * argument resolver registered with {@link #registerArgumentResolver(Class, ArgumentResolver)},
+   * except <code>int</code>, <code>long</code>, <code>double</code>, their wrappers, {@link String}
+   * and {@link CommandArguments}, which are built in.
+   *
+   * @param handler the instance of the annotated class
+   * @return the compiled command, already registered
+   * @throws IllegalArgumentException if the class is not annotated properly, or a parameter type
+   *     has no argument resolver
+   */
+  @NotNull
+  public BaseCommand registerAnnotatedCommand(@NotNull Object handler) {
+    BaseCommand command = AnnotatedCommands.compile(handler, argumentResolvers);
+    registerCommand(command);
+    return command;
+  }
+
+  /**
+   * Registers the argument resolver, which resolves the parameters of the specified type of
+   * annotated commands. Resolvers for {@link Float}, {@link Player}, {@link OfflinePlayer} and
+   * {@link GameMode} are registered by default, and can be replaced.
+   *
+   * @param type the parameter type
+   * @param resolver the resolver
+   * @param <T> parameter type
+   * @see #registerAnnotatedCommand(Object)
+   */
+  public <T> void registerArgumentResolver(
+      @NotNull Class<T> type, @NotNull ArgumentResolver<? extends T> resolver) {
+    Preconditions.checkNotNull(type, "type");
+    Preconditions.checkNotNull(resolver, "resolver");
+    argumentResolvers.put(type, resolver);
+  }
+
   /**
    * Enables permission check for showing up commands, registered by this manager by doing /[tab]
    * ingame. It is suggested to call this method after registering all commands you have, because if
@@ -81,8 +278,7 @@ public final class CommandManager {
    * had no permission to view them, that's bukkit's permission system fault.
    */
   public void enablePermissionCheckWhenFirstTabComplete() {
-    Bukkit.getPluginManager()
-        .registerEvents(new CommandSendListener(plugin.getName(), mapBridge.getCommands()), plugin);
+    Bukkit.getPluginManager().registerEvents(new CommandSendListener(mapBridge), plugin);
   }
 
   /**
@@ -94,17 +290,30 @@ public final class CommandManager {
    */
   @NotNull
   public String getNoPermissionMessage() {
+    return noPermissionMessage.getText();
+  }
+
+  /**
+   * Gets the compiled no permission message, with the placeholders <code>{label}</code> and
+   * <code>{permission}</code>.
+   *
+   * @return no permission message template
+   * @see #getNoPermissionMessage()
+   */
+  @NotNull
+  public MessageTemplate getNoPermissionTemplate() {
     return noPermissionMessage;
   }
 
   /**
-   * Sets a new no permission message
+   * Sets a new no permission message. <code>{label}</code> gets replaced with the label the
+   * command was invoked with and <code>{permission}</code> with the permission the sender lacks.
    *
    * @param noPermissionMessage new message
    * @see #getNoPermissionMessage()
    */
   public void setNoPermissionMessage(@NotNull String noPermissionMessage) {
-    this.noPermissionMessage = colorize(noPermissionMessage);
+    this.noPermissionMessage = MessageTemplate.compile(noPermissionMessage, "label", "permission");
   }
 
   /**
@@ -115,20 +324,491 @@ public final class CommandManager {
    */
   @NotNull
   public String getNoConsoleMessage() {
+    return noConsoleMessage.getText();
+  }
+
+  /**
+   * Gets the compiled no console message, with the placeholder <code>{label}</code>.
+   *
+   * @return no console message template
+   * @see #getNoConsoleMessage()
+   */
+  @NotNull
+  public MessageTemplate getNoConsoleTemplate() {
     return noConsoleMessage;
   }
 
   /**
-   * Sets a new no console message
+   * Sets a new no console message. <code>{label}</code> gets replaced with the label the command
+   * was invoked with.
    *
    * @param noConsoleMessage new message
    * @see #getNoConsoleMessage()
    */
   public void setNoConsoleMessage(@NotNull String noConsoleMessage) {
-    this.noConsoleMessage = colorize(noConsoleMessage);
+    this.noConsoleMessage = MessageTemplate.compile(noConsoleMessage, "label");
+  }
+
+  /**
+   * Gets the compiled usage message, which is being used if a argument of a annotated command
+   * wasn't typed, and the command has no usage of its own. It has the placeholders <code>{label}
+   * </code> and <code>{usage}</code>. You are able to modify the default one with {@link
+   * #setUsageMessage(String)}
+   *
+   * @return usage message template
+   */
+  @NotNull
+  public MessageTemplate getUsageTemplate() {
+    return usageMessage;
+  }
+
+  /**
+   * Sets a new usage message. <code>{label}</code> gets replaced with the label the command was
+   * invoked with and <code>{usage}</code> with the generated usage of the command.
+   *
+   * @param usageMessage new message
+   * @see #getUsageTemplate()
+   */
+  public void setUsageMessage(@NotNull String usageMessage) {
+    this.usageMessage = MessageTemplate.compile(usageMessage, "label", "usage");
+  }
+
+  /**
+   * Gets the compiled invalid argument message, which is being used if a argument of a annotated
+   * command can't be resolved, and the command has no usage of its own. It has the placeholders
+   * <code>{argument}</code>, <code>{label}</code> and <code>{usage}</code>. You are able to modify
+   * the default one with {@link #setInvalidArgumentMessage(String)}
+   *
+   * @return invalid argument message template
+   */
+  @NotNull
+  public MessageTemplate getInvalidArgumentTemplate() {
+    return invalidArgumentMessage;
+  }
+
+  /**
+   * Sets a new invalid argument message. <code>{argument}</code> gets replaced with the argument
+   * which can't be resolved, <code>{label}</code> with the label the command was invoked with and
+   * <code>{usage}</code> with the generated usage of the command.
+   *
+   * @param invalidArgumentMessage new message
+   * @see #getInvalidArgumentTemplate()
+   */
+  public void setInvalidArgumentMessage(@NotNull String invalidArgumentMessage) {
+    this.invalidArgumentMessage =
+        MessageTemplate.compile(invalidArgumentMessage, "argument", "label", "usage");
+  }
+
+  /**
+   * Gets the compiled did you mean message, which is being sent after the invalid argument message
+   * if there are any suggestions of what was meant, e.g. the closest subcommands to a mistyped
+   * one. It has the placeholder <code>{suggestions}</code>. You are able to modify the default one
+   * with {@link #setDidYouMeanMessage(String)}
+   *
+   * @return did you mean message template
+   * @see SuggestionProvider
+   */
+  @NotNull
+  public MessageTemplate getDidYouMeanTemplate() {
+    return didYouMeanMessage;
+  }
+
+  /**
+   * Sets a new did you mean message. <code>{suggestions}</code> gets replaced with the
+   * suggestions, separated by commas.
+   *
+   * @param didYouMeanMessage new message
+   * @see #getDidYouMeanTemplate()
+   */
+  public void setDidYouMeanMessage(@NotNull String didYouMeanMessage) {
+    this.didYouMeanMessage = MessageTemplate.compile(didYouMeanMessage, "suggestions");
+  }
+
+  /**
+   * Gets the maximum amount of tab completions, which are being sent back for a single completion.
+   * You are able to modify the default one, which is no limit, with {@link
+   * #setMaxTabCompletions(int)}
+   *
+   * @return max tab completions
+   */
+  public int getMaxTabCompletions() {
+    return maxTabCompletions;
+  }
+
+  /**
+   * Sets a new maximum amount of tab completions. When a {@link TabCompleter} returns a {@link
+   * CompletionIndex}, the lookup stops after this amount of completions were found, otherwise the
+   * completions after this amount are dropped.
+   *
+   * @param maxTabCompletions new max tab completions
+   * @see #getMaxTabCompletions()
+   */
+  public void setMaxTabCompletions(int maxTabCompletions) {
+    Preconditions.checkArgument(maxTabCompletions >= 0, "maxTabCompletions can't be negative");
+    this.maxTabCompletions = maxTabCompletions;
+  }
+
+  /**
+   * Gets the tab completion cache of the commands registered by this manager.
+   *
+   * @return tab completion cache or null if completions aren't cached
+   */
+  @Nullable
+  public TabCompletionCache getTabCompletionCache() {
+    return tabCompletionCache;
+  }
+
+  /**
+   * Sets a new tab completion cache, which caches the completions of all the commands registered by
+   * this manager. Make sure to read what {@link TabCompletionCache} requires from the commands
+   * before enabling it. By default there is no cache.
+   *
+   * @param tabCompletionCache new tab completion cache or null to disable caching
+   */
+  public void setTabCompletionCache(@Nullable TabCompletionCache tabCompletionCache) {
+    this.tabCompletionCache = tabCompletionCache;
+  }
+
+  /**
+   * Gets the executor, which is given to {@link AsyncTabCompleter}s to compute their completions
+   * on. You are able to modify the default one, which is the common fork join pool, with {@link
+   * #setTabCompleteExecutor(Executor)}
+   *
+   * @return tab complete executor
+   */
+  @NotNull
+  public Executor getTabCompleteExecutor() {
+    return tabCompleteExecutor;
+  }
+
+  /**
+   * Sets a new tab complete executor
+   *
+   * @param tabCompleteExecutor new executor
+   * @see #getTabCompleteExecutor()
+   */
+  public void setTabCompleteExecutor(@NotNull Executor tabCompleteExecutor) {
+    this.tabCompleteExecutor =
+        Preconditions.checkNotNull(tabCompleteExecutor, "tabCompleteExecutor");
+  }
+
+  /**
+   * Gets the executor, which async commands are being executed on. If you haven't set one with
+   * {@link #setCommandExecutor(Executor)}, the default one has up to 2 threads, which stop after
+   * being idle for a minute, and takes up to 64 waiting commands. It is shut down by {@link
+   * #close()}. When the executor rejects a command, the sender gets the {@link #getBusyMessage()}.
+   *
+   * @return command executor
+   * @see ICFCommand#setAsync(boolean)
+   */
+  @NotNull
+  public synchronized Executor getCommandExecutor() {
+    if (commandExecutor == null) {
+      defaultCommandExecutor = createDefaultCommandExecutor();
+      commandExecutor = defaultCommandExecutor;
+    }
+    return commandExecutor;
+  }
+
+  /**
+   * Sets a new command executor. It should be bounded and reject commands with a {@link
+   * RejectedExecutionException} when full, so senders get told to try again later instead of
+   * their commands piling up.
+   *
+   * @param commandExecutor new executor
+   * @see #getCommandExecutor()
+   */
+  public synchronized void setCommandExecutor(@NotNull Executor commandExecutor) {
+    this.commandExecutor = Preconditions.checkNotNull(commandExecutor, "commandExecutor");
+    shutdownDefaultCommandExecutor();
+  }
+
+  /**
+   * Unregisters all of the commands registered through this command manager and shuts the default
+   * command executor down, letting the async commands which are already running finish. Call this
+   * when your plugin gets disabled, so reloading it doesn't leave threads of the old plugin
+   * running. The executors you've set yourself aren't shut down.
+   *
+   * @see #unregisterAll()
+   */
+  public synchronized void close() {
+    unregisterAll();
+    shutdownDefaultCommandExecutor();
+    commandExecutor = null;
+  }
+
+  private void shutdownDefaultCommandExecutor() {
+    if (defaultCommandExecutor != null) {
+      defaultCommandExecutor.shutdown();
+      defaultCommandExecutor = null;
+    }
+  }
+
+  /**
+   * Gets the busy message, which is being used if a async command can't be executed because the
+   * {@link #getCommandExecutor()} is full. You are able to modify the default one with {@link
+   * #setBusyMessage(String)}
+   *
+   * @return busy message
+   */
+  @NotNull
+  public String getBusyMessage() {
+    return busyMessage.getText();
+  }
+
+  /**
+   * Gets the compiled busy message, with the placeholder <code>{label}</code>.
+   *
+   * @return busy message template
+   * @see #getBusyMessage()
+   */
+  @NotNull
+  public MessageTemplate getBusyTemplate() {
+    return busyMessage;
+  }
+
+  /**
+   * Sets a new busy message. <code>{label}</code> gets replaced with the label the command was
+   * invoked with.
+   *
+   * @param busyMessage new message
+   * @see #getBusyMessage()
+   */
+  public void setBusyMessage(@NotNull String busyMessage) {
+    this.busyMessage = MessageTemplate.compile(busyMessage, "label");
+  }
+
+  /**
+   * Gets the rate limited message, which is being used if a player executes a command more often
+   * than its {@link RateLimiter} allows. You are able to modify the default one with {@link
+   * #setRateLimitedMessage(String)}
+   *
+   * @return rate limited message
+   */
+  @NotNull
+  public String getRateLimitedMessage() {
+    return rateLimitedMessage.getText();
+  }
+
+  /**
+   * Gets the compiled rate limited message, with the placeholders <code>{time}</code> and <code>
+   * {label}</code>.
+   *
+   * @return rate limited message template
+   * @see #getRateLimitedMessage()
+   */
+  @NotNull
+  public MessageTemplate getRateLimitedTemplate() {
+    return rateLimitedMessage;
+  }
+
+  /**
+   * Sets a new rate limited message. <code>{time}</code> gets replaced with the time the player
+   * has to wait and <code>{label}</code> with the label the command was invoked with.
+   *
+   * @param rateLimitedMessage new message
+   * @see #getRateLimitedMessage()
+   */
+  public void setRateLimitedMessage(@NotNull String rateLimitedMessage) {
+    this.rateLimitedMessage = MessageTemplate.compile(rateLimitedMessage, "time", "label");
+  }
+
+  /**
+   * Runs the specified task on the server thread. If this is already the server thread, the task
+   * is ran right away.
+   *
+   * @param task the task to run
+   * @return future, which completes once the task ran
+   */
+  @NotNull
+  public CompletableFuture<Void> runSync(@NotNull Runnable task) {
+    Preconditions.checkNotNull(task, "task");
+    return supplySync(
+        () -> {
+          task.run();
+          return null;
+        });
+  }
+
+  /**
+   * Gets a value on the server thread, e.g. something which is only safe to access there. If this
+   * is already the server thread, the value is got right away.
+   *
+   * @param supplier the supplier of the value
+   * @param <T> value type
+   * @return future, which completes with the value
+   */
+  @NotNull
+  public <T> CompletableFuture<T> supplySync(@NotNull Supplier<T> supplier) {
+    Preconditions.checkNotNull(supplier, "supplier");
+    if (Bukkit.isPrimaryThread()) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      try {
+        future.complete(supplier.get());
+      } catch (Throwable error) {
+        future.completeExceptionally(error);
+      }
+      return future;
+    }
+    return CompletableFuture.supplyAsync(
+        supplier, task -> Bukkit.getScheduler().runTask(plugin, task));
+  }
+
+  /**
+   * Gets the permission cache of the commands registered by this manager.
+   *
+   * @return permission cache or null if permission decisions aren't cached
+   */
+  @Nullable
+  public PermissionCache getPermissionCache() {
+    return permissionCache;
+  }
+
+  /**
+   * Sets a new permission cache, which caches the permission decisions for the commands registered
+   * by this manager. By default there is no cache.
+   *
+   * @param permissionCache new permission cache or null to disable caching
+   */
+  public void setPermissionCache(@Nullable PermissionCache permissionCache) {
+    if (this.permissionCache != null) {
+      HandlerList.unregisterAll(this.permissionCache);
+    }
+    this.permissionCache = permissionCache;
+    if (permissionCache != null) {
+      Bukkit.getPluginManager().registerEvents(permissionCache, plugin);
+    }
+  }
+
+  /**
+   * Gets the online player index of this manager.
+   *
+   * @return player index or null if there is none
+   */
+  @Nullable
+  public PlayerIndex getPlayerIndex() {
+    return playerIndex;
+  }
+
+  /**
+   * Sets a new online player index, which gets updated when players join and quit. The index
+   * resolves the {@link Player} parameters of annotated commands registered after this call. By
+   * default there is no index, and {@link ArgumentResolvers#PLAYER} is used.
+   *
+   * @param playerIndex new player index or null to disable it
+   */
+  public void setPlayerIndex(@Nullable PlayerIndex playerIndex) {
+    if (this.playerIndex != null) {
+      HandlerList.unregisterAll(this.playerIndex);
+      if (argumentResolvers.get(Player.class) == this.playerIndex.resolver()) {
+        registerArgumentResolver(Player.class, ArgumentResolvers.PLAYER);
+      }
+    }
+    this.playerIndex = playerIndex;
+    if (playerIndex != null) {
+      Bukkit.getPluginManager().registerEvents(playerIndex, plugin);
+      registerArgumentResolver(Player.class, playerIndex.resolver());
+    }
+  }
+
+  /**
+   * Gets the metrics of the commands registered by this manager.
+   *
+   * @return metrics or null if metrics are disabled
+   */
+  @Nullable
+  public CommandMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Sets if the metrics of the commands registered by this manager should be recorded: how many
+   * times they were executed, how long their executions and tab completions took, how many of their
+   * arguments failed to be got and how many times they were denied. By default metrics are
+   * disabled, and cost nothing.
+   *
+   * <p>Disabling the metrics drops what was recorded.
+   *
+   * @param enabled value
+   */
+  public void setMetricsEnabled(boolean enabled) {
+    if (!enabled) {
+      metrics = null;
+    } else if (metrics == null) {
+      metrics = new CommandMetrics();
+    }
+  }
+
+  /**
+   * Gets the watchdog of the commands registered by this manager.
+   *
+   * @return watchdog or null if slow commands aren't watched
+   */
+  @Nullable
+  public CommandWatchdog getWatchdog() {
+    return watchdog;
+  }
+
+  /**
+   * Sets a new watchdog, which reports the executions and tab completions of the commands
+   * registered by this manager which take too long. By default there is no watchdog. The watchdog
+   * doesn't get closed when replaced.
+   *
+   * @param watchdog new watchdog or null to disable it
+   */
+  public void setWatchdog(@Nullable CommandWatchdog watchdog) {
+    this.watchdog = watchdog;
+  }
+
+  /**
+   * Registers the <code>/icf stats</code> command, which shows the {@link #getMetrics()} of the
+   * commands registered by this manager to senders with the <code>icf.stats</code> permission. The
+   * metrics still need to be enabled with {@link #setMetricsEnabled(boolean)}.
+   */
+  public void registerStatsCommand() {
+    registerCommand(MetricsCommand.create(this));
+  }
+
+  /**
+   * Returns whenever the specified {@link CommandSender} has the specified permission, using the
+   * {@link #getPermissionCache()} if there is one.
+   *
+   * @param sender the sender you wish to check if has a permission
+   * @param permission the permission
+   * @return <code>true</code> if has permission, otherwise <code>false</code>
+   */
+  public boolean hasPermission(@NotNull CommandSender sender, @NotNull String permission) {
+    PermissionCache permissionCache = this.permissionCache;
+    return permissionCache != null
+        ? permissionCache.hasPermission(sender, permission)
+        : sender.hasPermission(permission);
+  }
+
+  /**
+   * Gets the plugin this manager registers the commands for.
+   *
+   * @return plugin
+   */
+  @NotNull
+  public Plugin getPlugin() {
+    return plugin;
   }
 
-  private String colorize(String text) {
-    return ChatColor.translateAlternateColorCodes('&', text);
+  private ThreadPoolExecutor createDefaultCommandExecutor() {
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadFactory threadFactory =
+        task -> {
+          String name =
+              "ICF Command Executor - " + plugin.getName() + " #" + threadCount.incrementAndGet();
+          Thread thread = new Thread(task, name);
+          thread.setDaemon(true);
+          return thread;
+        };
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            2, 2, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(64), threadFactory);
+    // idle threads stop, so they don't keep the plugin loaded if the manager is never closed
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
   }
 }
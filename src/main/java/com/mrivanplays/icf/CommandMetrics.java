@@ -0,0 +1,108 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the metrics of the commands registered by a {@link CommandManager}, which can be
+ * enabled with {@link CommandManager#setMetricsEnabled(boolean)}. While disabled, nothing gets
+ * recorded.
+ */
+public final class CommandMetrics {
+
+  private final ConcurrentMap<String, CommandStats> stats = new ConcurrentHashMap<>();
+
+  CommandMetrics() {}
+
+  /**
+   * Gets the statistics of the command registered with the specified label, creating them if
+   * there are none yet.
+   *
+   * @param label the label the command was registered with
+   * @return command statistics
+   */
+  @NotNull
+  public CommandStats getStats(@NotNull String label) {
+    Preconditions.checkNotNull(label, "label");
+    CommandStats commandStats = stats.get(label);
+    return commandStats != null ? commandStats : stats.computeIfAbsent(label, CommandStats::new);
+  }
+
+  /**
+   * Gets the statistics of the command registered with the specified label, if anything was
+   * recorded for it.
+   *
+   * @param label the label the command was registered with
+   * @return command statistics or null
+   */
+  @Nullable
+  public CommandStats getStatsIfPresent(@NotNull String label) {
+    Preconditions.checkNotNull(label, "label");
+    return stats.get(label);
+  }
+
+  /**
+   * Returns the statistics of all the commands, the ones which took the most time executing
+   * first.
+   *
+   * @return command statistics
+   */
+  @NotNull
+  public List<CommandStats> getAllStats() {
+    // the totals keep changing while recording, so they're sorted by a snapshot of them
+    Map<CommandStats, Long> totals = new IdentityHashMap<>();
+    for (CommandStats commandStats : stats.values()) {
+      totals.put(commandStats, commandStats.getExecuteLatency().getTotal(TimeUnit.NANOSECONDS));
+    }
+    List<CommandStats> all = new ArrayList<>(totals.keySet());
+    all.sort((first, second) -> Long.compare(totals.get(second), totals.get(first)));
+    return Collections.unmodifiableList(all);
+  }
+
+  /**
+   * Removes the statistics of the command registered with the specified label, for example
+   * because it got unregistered.
+   *
+   * @param label the label the command was registered with
+   */
+  public void removeStats(@NotNull String label) {
+    Preconditions.checkNotNull(label, "label");
+    stats.remove(label);
+  }
+
+  /** Removes all the recorded statistics. */
+  public void reset() {
+    for (CommandStats commandStats : stats.values()) {
+      commandStats.reset();
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a compiled node of a command tree. The subcommands of a {@link BaseCommand} are
+ * compiled once, when the command gets registered, into a tree of nodes keyed on their names and
+ * aliases, case insensitive. Finding a subcommand is therefore a hash lookup per level instead of a
+ * scan over the subcommands.
+ */
+public final class CommandNode implements SuggestionProvider {
+
+  /**
+   * Compiles the specified command, along with its subcommands if it is a {@link BaseCommand}, into
+   * a command tree.
+   *
+   * @param command the command to compile
+   * @return root node of the command tree
+   * @throws IllegalArgumentException if two subcommands of the same command share a name or alias,
+   *     or a command is a subcommand of itself
+   */
+  @NotNull
+  public static CommandNode compile(@NotNull ICFCommand command) {
+    Preconditions.checkNotNull(command, "command");
+    return compile(command, new IdentityHashMap<>());
+  }
+
+  private static CommandNode compile(ICFCommand command, Map<ICFCommand, Boolean> ancestors) {
+    Preconditions.checkArgument(
+        ancestors.put(command, Boolean.TRUE) == null, "Command is a subcommand of itself");
+    List<String> literals = new ArrayList<>();
+    List<CommandNode> nodes = new ArrayList<>();
+    if (command instanceof BaseCommand) {
+      for (BaseCommand subcommand : ((BaseCommand) command).getSubcommands()) {
+        CommandNode node = compile(subcommand, ancestors);
+        literals.add(subcommand.getName());
+        nodes.add(node);
+        if (subcommand.getAliases() != null) {
+          for (String alias : subcommand.getAliases()) {
+            literals.add(alias);
+            nodes.add(node);
+          }
+        }
+      }
+    }
+    ancestors.remove(command);
+    return new CommandNode(command, literals, nodes);
+  }
+
+  private final ICFCommand command;
+  private final List<String> literals;
+  private final List<CommandNode> distinctChildren;
+  // open addressing table, sized to a power of two at least twice the literals count
+  private final String[] keys;
+  private final CommandNode[] children;
+  private final int mask;
+  private final SuggestionIndex suggestions;
+
+  private CommandNode(ICFCommand command, List<String> literals, List<CommandNode> nodes) {
+    this.command = command;
+    this.literals = Collections.unmodifiableList(literals);
+    List<CommandNode> distinctChildren = new ArrayList<>();
+    for (CommandNode node : nodes) {
+      // the aliases of a subcommand come right after its name
+      if (distinctChildren.isEmpty() || distinctChildren.get(distinctChildren.size() - 1) != node) {
+        distinctChildren.add(node);
+      }
+    }
+    this.distinctChildren = Collections.unmodifiableList(distinctChildren);
+    int capacity = Integer.highestOneBit(Math.max(1, literals.size()) * 2 - 1) << 1;
+    keys = new String[capacity];
+    children = new CommandNode[capacity];
+    mask = capacity - 1;
+    for (int i = 0; i < literals.size(); i++) {
+      String literal = literals.get(i);
+      Preconditions.checkArgument(
+          literal != null && !literal.isEmpty(), "Subcommand names can't be null or empty");
+      int slot = hash(literal) & mask;
+      while (keys[slot] != null) {
+        Preconditions.checkArgument(
+            !keys[slot].equalsIgnoreCase(literal), "Duplicate subcommand '%s'", literal);
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = literal;
+      children[slot] = nodes.get(i);
+    }
+    suggestions = SuggestionIndex.of(literals);
+  }
+
+  /**
+   * Returns the command this node invokes.
+   *
+   * @return command
+   */
+  @NotNull
+  public ICFCommand getCommand() {
+    return command;
+  }
+
+  /**
+   * Gets the child node, which has the specified name or alias, case insensitive.
+   *
+   * @param literal the name or alias of the subcommand
+   * @return child node or null if there is no such subcommand
+   */
+  @Nullable
+  public CommandNode getChild(@Nullable String literal) {
+    if (literal == null || literal.isEmpty()) {
+      return null;
+    }
+    int slot = hash(literal) & mask;
+    String key;
+    while ((key = keys[slot]) != null) {
+      if (key.equalsIgnoreCase(literal)) {
+        return children[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Suggests the closest names and aliases of the subcommands to the specified input, e.g. after
+   * {@link #getChild(String)} found none.
+   *
+   * @param input the input which isn't a subcommand
+   * @return suggestions, the closest first
+   */
+  @NotNull
+  @Override
+  public List<String> suggest(@NotNull String input) {
+    return suggestions.suggest(input);
+  }
+
+  /**
+   * Suggests the closest names and aliases of the subcommands, which the specified {@link
+   * CommandSender} is allowed to use, to the specified input.
+   *
+   * @param sender the sender which mistyped the subcommand
+   * @param input the input which isn't a subcommand
+   * @return suggestions, the closest first
+   */
+  @NotNull
+  public List<String> suggest(@NotNull CommandSender sender, @NotNull String input) {
+    Preconditions.checkNotNull(sender, "sender");
+    return suggestions.suggest(input, literal -> getChild(literal).canUse(sender));
+  }
+
+  /**
+   * Returns whenever this node has any subcommands.
+   *
+   * @return <code>true</code> if there are subcommands, <code>false</code> otherwise
+   */
+  public boolean hasChildren() {
+    return !literals.isEmpty();
+  }
+
+  /**
+   * Returns the names and aliases of the subcommands, in the order they were added.
+   *
+   * @return subcommand names and aliases
+   */
+  @NotNull
+  public List<String> getLiterals() {
+    return literals;
+  }
+
+  /**
+   * Returns the child nodes, one per subcommand, in the order they were added.
+   *
+   * @return child nodes
+   */
+  @NotNull
+  public List<CommandNode> getChildren() {
+    return distinctChildren;
+  }
+
+  /**
+   * Returns whenever the specified {@link CommandSender} is allowed to invoke the command of this
+   * node, which checks both the permission and if the command is player only.
+   *
+   * @param sender the sender you wish to check
+   * @return <code>true</code> if allowed, otherwise <code>false</code>
+   */
+  public boolean canUse(@NotNull CommandSender sender) {
+    return (!command.isPlayerOnly() || sender instanceof Player) && command.hasPermission(sender);
+  }
+
+  /**
+   * Adds the names and aliases of the subcommands, which start with the specified prefix (case
+   * insensitive) and the specified {@link CommandSender} is allowed to use, to the specified list.
+   *
+   * @param sender the sender which invoked the completion
+   * @param prefix the prefix the names should start with
+   * @param matches the list to add the names to
+   */
+  public void completeLiterals(
+      @NotNull CommandSender sender, @NotNull String prefix, @NotNull List<String> matches) {
+    for (String literal : literals) {
+      if (literal.regionMatches(true, 0, prefix, 0, prefix.length())
+          && getChild(literal).canUse(sender)) {
+        matches.add(literal);
+      }
+    }
+  }
+
+  // case insensitive the same way String#equalsIgnoreCase is, also used by EnumResolver
+  static int hash(String literal) {
+    int hash = 0;
+    for (int i = 0, length = literal.length(); i < length; i++) {
+      hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(literal.charAt(i)));
+    }
+    return hash ^ (hash >>> 16);
+  }
+}
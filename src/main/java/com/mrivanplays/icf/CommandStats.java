@@ -0,0 +1,195 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the statistics of a registered command, recorded while the {@link CommandMetrics} of
+ * its {@link CommandManager} are enabled. The statistics of a command include the ones of its
+ * subcommands.
+ */
+public final class CommandStats {
+
+  private final String label;
+  private final LatencyHistogram executeLatency = new LatencyHistogram();
+  private final LatencyHistogram tabCompleteLatency = new LatencyHistogram();
+  private final LongAdder[] failures;
+  private final LongAdder permissionRejections = new LongAdder();
+  private final LongAdder consoleRejections = new LongAdder();
+  private final LongAdder rateLimitRejections = new LongAdder();
+
+  CommandStats(@NotNull String label) {
+    this.label = label;
+    FailReason[] reasons = FailReason.values();
+    failures = new LongAdder[reasons.length];
+    for (int i = 0; i < reasons.length; i++) {
+      failures[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Returns the label the command was registered with.
+   *
+   * @return label
+   */
+  @NotNull
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * Returns the count of executions of the command, which passed the permission and player only
+   * checks.
+   *
+   * @return invocations count
+   */
+  public long getInvocations() {
+    return executeLatency.getCount();
+  }
+
+  /**
+   * Returns the histogram of the execution latencies of the command.
+   *
+   * @return execute latency histogram
+   */
+  @NotNull
+  public LatencyHistogram getExecuteLatency() {
+    return executeLatency;
+  }
+
+  /**
+   * Returns the histogram of the tab completion latencies of the command.
+   *
+   * @return tab complete latency histogram
+   */
+  @NotNull
+  public LatencyHistogram getTabCompleteLatency() {
+    return tabCompleteLatency;
+  }
+
+  /**
+   * Returns how many arguments of the command failed to be got for the specified reason.
+   *
+   * @param reason the fail reason
+   * @return failures count
+   */
+  public long getFailures(@NotNull FailReason reason) {
+    Preconditions.checkNotNull(reason, "reason");
+    return failures[reason.ordinal()].sum();
+  }
+
+  /**
+   * Returns how many arguments of the command failed to be got, for any reason.
+   *
+   * @return failures count
+   */
+  public long getFailures() {
+    long sum = 0;
+    for (LongAdder failure : failures) {
+      sum += failure.sum();
+    }
+    return sum;
+  }
+
+  /**
+   * Returns how many times the command was denied because the sender had no permission.
+   *
+   * @return permission rejections count
+   */
+  public long getPermissionRejections() {
+    return permissionRejections.sum();
+  }
+
+  /**
+   * Returns how many times the command was denied because it is player only.
+   *
+   * @return console rejections count
+   */
+  public long getConsoleRejections() {
+    return consoleRejections.sum();
+  }
+
+  /**
+   * Returns how many times the command was denied because the sender was rate limited.
+   *
+   * @return rate limit rejections count
+   */
+  public long getRateLimitRejections() {
+    return rateLimitRejections.sum();
+  }
+
+  /**
+   * Records a execution of the command, which took the specified time.
+   *
+   * @param nanos the time taken in nanoseconds
+   */
+  public void recordExecute(long nanos) {
+    executeLatency.record(nanos);
+  }
+
+  /**
+   * Records a tab completion of the command, which took the specified time.
+   *
+   * @param nanos the time taken in nanoseconds
+   */
+  public void recordTabComplete(long nanos) {
+    tabCompleteLatency.record(nanos);
+  }
+
+  /**
+   * Records a argument which failed to be got for the specified reason.
+   *
+   * @param reason the fail reason
+   */
+  public void recordFailure(@NotNull FailReason reason) {
+    failures[reason.ordinal()].increment();
+  }
+
+  /** Records a execution denied because the sender had no permission. */
+  public void recordPermissionRejection() {
+    permissionRejections.increment();
+  }
+
+  /** Records a execution denied because the command is player only. */
+  public void recordConsoleRejection() {
+    consoleRejections.increment();
+  }
+
+  /** Records a execution denied because the sender was rate limited. */
+  public void recordRateLimitRejection() {
+    rateLimitRejections.increment();
+  }
+
+  /** Removes all the recorded statistics. */
+  public void reset() {
+    executeLatency.reset();
+    tabCompleteLatency.reset();
+    for (LongAdder failure : failures) {
+      failure.reset();
+    }
+    permissionRejections.reset();
+    consoleRejections.reset();
+    rateLimitRejections.reset();
+  }
+}
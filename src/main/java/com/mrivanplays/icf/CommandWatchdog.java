@@ -0,0 +1,235 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import com.mrivanplays.icf.external.BridgeCommand;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a watchdog of slow commands, which can be enabled with {@link
+ * CommandManager#setWatchdog(CommandWatchdog)}. Once a execution or a tab completion of a command
+ * takes longer than the threshold, a sampler thread captures the stack of the thread running it
+ * at every sample interval. The same stacks are counted together while sampling, so a command
+ * which never finishes keeps only a bounded amount of them. When it finishes, a report of where
+ * the time went is logged.
+ *
+ * <p>The sampler thread keeps running until the watchdog is {@link #close() closed}, e.g. when the
+ * plugin gets disabled.
+ */
+public final class CommandWatchdog implements AutoCloseable {
+
+  private static final int MAX_FRAMES = 12;
+  private static final int MAX_STACKS = 5;
+  // a command blocking for good would otherwise keep every sample it ever took
+  private static final int MAX_DISTINCT_STACKS = 64;
+
+  private final long thresholdNanos;
+  private final Logger logger;
+  private final Set<Watch> running = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService sampler;
+
+  /**
+   * Creates a new watchdog. A threshold of 50 milliseconds catches the commands which take longer
+   * than a server tick.
+   *
+   * @param threshold the time after which a command is slow
+   * @param sampleInterval the time between the stack samples of a slow command
+   * @param unit the unit of the specified times
+   * @param logger the logger the reports get logged to
+   */
+  public CommandWatchdog(
+      long threshold, long sampleInterval, @NotNull TimeUnit unit, @NotNull Logger logger) {
+    Preconditions.checkArgument(threshold > 0, "threshold must be positive");
+    Preconditions.checkArgument(sampleInterval > 0, "sampleInterval must be positive");
+    Preconditions.checkNotNull(unit, "unit");
+    this.thresholdNanos = unit.toNanos(threshold);
+    this.logger = Preconditions.checkNotNull(logger, "logger");
+    this.sampler =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "ICF Command Watchdog");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long intervalNanos = unit.toNanos(sampleInterval);
+    sampler.scheduleAtFixedRate(this::sample, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Starts watching the current thread, which is about to run a command. {@link Watch#finish()}
+   * must be called when the command finishes.
+   *
+   * @param action what the command does, e.g. <code>execute</code> or <code>tab complete</code>
+   * @param label the label the command was invoked with
+   * @param args the arguments the command was invoked with
+   * @return watch
+   */
+  @NotNull
+  public Watch watch(@NotNull String action, @NotNull String label, @NotNull String[] args) {
+    Watch watch = new Watch(Thread.currentThread(), action, label, args, System.nanoTime());
+    running.add(watch);
+    return watch;
+  }
+
+  /** Stops the sampler thread. Commands which are still watched won't be reported. */
+  @Override
+  public void close() {
+    sampler.shutdownNow();
+    running.clear();
+  }
+
+  private void sample() {
+    try {
+      long now = System.nanoTime();
+      for (Watch watch : running) {
+        if (now - watch.start >= thresholdNanos) {
+          watch.addSample(condense(watch.thread.getStackTrace()));
+        }
+      }
+    } catch (Throwable error) {
+      // a exception would cancel the sampling for good
+      logger.log(Level.WARNING, "Failed to sample slow commands", error);
+    }
+  }
+
+  private String report(Watch watch, long took) {
+    StringBuilder report = new StringBuilder();
+    report.append("Command '/").append(watch.label);
+    for (String arg : watch.args) {
+      report.append(' ').append(arg);
+    }
+    report
+        .append("' took ")
+        .append(millis(took))
+        .append(" to ")
+        .append(watch.action)
+        .append(" on thread '")
+        .append(watch.thread.getName())
+        .append("', more than the threshold of ")
+        .append(millis(thresholdNanos));
+    if (watch.sampleCount == 0) {
+      return report.append(". No stacks were sampled.").toString();
+    }
+    List<Map.Entry<List<StackTraceElement>, Integer>> stacks =
+        new ArrayList<>(watch.stacks.entrySet());
+    stacks.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+    report.append(". ").append(watch.sampleCount).append(" stack samples:");
+    for (int i = 0; i < stacks.size(); i++) {
+      if (i == MAX_STACKS) {
+        report.append("\n  ... ").append(stacks.size() - MAX_STACKS).append(" more stacks");
+        break;
+      }
+      Map.Entry<List<StackTraceElement>, Integer> stack = stacks.get(i);
+      report.append("\n  ").append(stack.getValue()).append("x");
+      for (StackTraceElement frame : stack.getKey()) {
+        report.append("\n    at ").append(frame);
+      }
+    }
+    if (watch.droppedSamples > 0) {
+      report
+          .append("\n  ")
+          .append(watch.droppedSamples)
+          .append("x in stacks past the first ")
+          .append(MAX_DISTINCT_STACKS);
+    }
+    return report.toString();
+  }
+
+  // the frames below the bridge are the same for every command, and the deepest ones matter most
+  private static List<StackTraceElement> condense(StackTraceElement[] sample) {
+    int length = sample.length;
+    for (int i = 0; i < sample.length; i++) {
+      if (sample[i].getClassName().equals(BridgeCommand.class.getName())) {
+        length = i;
+        break;
+      }
+    }
+    return Arrays.asList(Arrays.copyOf(sample, Math.min(length, MAX_FRAMES)));
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.1f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  /** Represents a command being watched by a {@link CommandWatchdog}. */
+  public final class Watch {
+
+    private final Thread thread;
+    private final String action;
+    private final String label;
+    private final String[] args;
+    private final long start;
+    private Map<List<StackTraceElement>, Integer> stacks = Collections.emptyMap();
+    private int sampleCount;
+    private int droppedSamples;
+    private boolean finished;
+
+    private Watch(Thread thread, String action, String label, String[] args, long start) {
+      this.thread = thread;
+      this.action = action;
+      this.label = label;
+      this.args = args;
+      this.start = start;
+    }
+
+    private synchronized void addSample(List<StackTraceElement> stack) {
+      if (finished) {
+        return;
+      }
+      sampleCount++;
+      if (stacks.isEmpty()) {
+        stacks = new HashMap<>();
+      }
+      if (stacks.size() < MAX_DISTINCT_STACKS || stacks.containsKey(stack)) {
+        stacks.merge(stack, 1, Integer::sum);
+      } else {
+        droppedSamples++;
+      }
+    }
+
+    /** Stops watching the command, and logs a report if it took longer than the threshold. */
+    public void finish() {
+      long took = System.nanoTime() - start;
+      running.remove(this);
+      synchronized (this) {
+        // no more samples get added once finished
+        finished = true;
+      }
+      if (took >= thresholdNanos) {
+        logger.warning(report(this, took));
+      }
+    }
+  }
+}
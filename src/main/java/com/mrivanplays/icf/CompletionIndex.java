@@ -0,0 +1,145 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a sorted, case insensitive index of tab completions. A {@link TabCompleter} can
+ * return it instead of a plain {@link Iterable}, and only the completions starting with the
+ * argument being completed will be sent, found with a binary search instead of going through all
+ * of them.
+ *
+ * <p>Creating a index sorts the completions, so it should be created once and reused, e.g. for
+ * materials or warps, instead of being created on every completion.
+ */
+public final class CompletionIndex implements Iterable<String> {
+
+  private static final CompletionIndex EMPTY = new CompletionIndex(new String[0]);
+
+  /**
+   * Creates a new completion index of the specified completions.
+   *
+   * @param completions the completions
+   * @return completion index
+   */
+  @NotNull
+  public static CompletionIndex of(@NotNull String... completions) {
+    Preconditions.checkNotNull(completions, "completions");
+    return of(Arrays.asList(completions));
+  }
+
+  /**
+   * Creates a new completion index of the specified completions.
+   *
+   * @param completions the completions
+   * @return completion index
+   */
+  @NotNull
+  public static CompletionIndex of(@NotNull Collection<String> completions) {
+    Preconditions.checkNotNull(completions, "completions");
+    if (completions.isEmpty()) {
+      return EMPTY;
+    }
+    String[] entries = completions.toArray(new String[0]);
+    for (String entry : entries) {
+      Preconditions.checkNotNull(entry, "completions contains null");
+    }
+    Arrays.sort(entries, String.CASE_INSENSITIVE_ORDER);
+    int size = 1;
+    for (int i = 1; i < entries.length; i++) {
+      if (!entries[i].equals(entries[size - 1])) {
+        entries[size++] = entries[i];
+      }
+    }
+    return new CompletionIndex(size == entries.length ? entries : Arrays.copyOf(entries, size));
+  }
+
+  private final String[] entries;
+  private final List<String> view;
+
+  private CompletionIndex(String[] entries) {
+    this.entries = entries;
+    this.view = Collections.unmodifiableList(Arrays.asList(entries));
+  }
+
+  /**
+   * Gets the completions starting with the specified prefix, case insensitive, in case insensitive
+   * order. The returned list is a view of this index and is not copied.
+   *
+   * @param prefix the prefix the completions should start with
+   * @param limit the maximum amount of completions to return
+   * @return completions starting with the prefix
+   */
+  @NotNull
+  public List<String> complete(@NotNull String prefix, int limit) {
+    Preconditions.checkNotNull(prefix, "prefix");
+    Preconditions.checkArgument(limit >= 0, "limit can't be negative");
+    // strings starting with the prefix are all sorted right at or after it
+    int from = lowerBound(prefix);
+    int to = from;
+    int high = entries.length;
+    while (to < high) {
+      int middle = (to + high) >>> 1;
+      if (entries[middle].regionMatches(true, 0, prefix, 0, prefix.length())) {
+        to = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return view.subList(from, from + Math.min(limit, to - from));
+  }
+
+  private int lowerBound(String prefix) {
+    int low = 0;
+    int high = entries.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (String.CASE_INSENSITIVE_ORDER.compare(entries[middle], prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the count of the completions in this index.
+   *
+   * @return completions count
+   */
+  public int size() {
+    return entries.length;
+  }
+
+  @NotNull
+  @Override
+  public Iterator<String> iterator() {
+    return view.iterator();
+  }
+}
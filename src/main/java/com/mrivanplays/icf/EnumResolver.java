@@ -0,0 +1,238 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a argument resolver of the constants of a enum, by their names, case insensitive, and
+ * optionally by numbers or aliases. The names are put in a lookup table once, when the resolver is
+ * created, so resolving a argument doesn't allocate and a argument which is not a constant
+ * resolves to null instead of throwing a exception.
+ *
+ * <p>The resolver is also a {@link TabCompleter}, which completes the last argument with the
+ * lowercase names and the aliases of the constants, and a {@link SuggestionProvider}, which
+ * suggests the closest of them to a mistyped argument.
+ *
+ * @param <E> enum type
+ * @see ArgumentResolvers#forEnum(Class)
+ */
+public final class EnumResolver<E extends Enum<E>>
+    implements ArgumentResolver<E>, TabCompleter, SuggestionProvider {
+
+  /**
+   * Creates a new builder of a enum resolver of the specified enum.
+   *
+   * @param type the enum class
+   * @param <E> enum type
+   * @return builder
+   */
+  @NotNull
+  public static <E extends Enum<E>> Builder<E> builder(@NotNull Class<E> type) {
+    return new Builder<>(type);
+  }
+
+  private final Class<E> type;
+  // open addressing table, sized to a power of two at least twice the keys count
+  private final String[] keys;
+  private final Object[] values;
+  private final int mask;
+  private final CompletionIndex completions;
+  private final SuggestionIndex suggestions;
+
+  private EnumResolver(Class<E> type, Map<String, E> table, List<String> completions) {
+    this.type = type;
+    int capacity = Integer.highestOneBit(Math.max(1, table.size()) * 2 - 1) << 1;
+    keys = new String[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    for (Map.Entry<String, E> entry : table.entrySet()) {
+      int slot = CommandNode.hash(entry.getKey()) & mask;
+      while (keys[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = entry.getKey();
+      values[slot] = entry.getValue();
+    }
+    this.completions = CompletionIndex.of(completions);
+    this.suggestions = SuggestionIndex.of(completions);
+  }
+
+  /**
+   * Resolves the constant with the specified name, number or alias, case insensitive.
+   *
+   * @param input the input argument to resolve
+   * @return constant, or null if there is no such constant
+   */
+  @Nullable
+  @Override
+  public E resolve(@NotNull String input) {
+    if (input.isEmpty()) {
+      return null;
+    }
+    int slot = CommandNode.hash(input) & mask;
+    String key;
+    while ((key = keys[slot]) != null) {
+      if (key.equalsIgnoreCase(input)) {
+        return type.cast(values[slot]);
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the enum class this resolver resolves the constants of.
+   *
+   * @return enum class
+   */
+  @NotNull
+  public Class<E> getType() {
+    return type;
+  }
+
+  /**
+   * Returns the completions of this resolver, which are the lowercase names and the aliases of the
+   * constants.
+   *
+   * @return completion index
+   */
+  @NotNull
+  public CompletionIndex getCompletions() {
+    return completions;
+  }
+
+  /**
+   * Suggests the closest lowercase names and aliases of the constants to the specified input.
+   *
+   * @param input the input which isn't a constant
+   * @return suggestions, the closest first
+   */
+  @NotNull
+  @Override
+  public List<String> suggest(@NotNull String input) {
+    return suggestions.suggest(input);
+  }
+
+  @NotNull
+  @Override
+  public Iterable<String> tabComplete(
+      @NotNull CommandSender sender, @NotNull String label, @NotNull CommandArguments args) {
+    return completions;
+  }
+
+  /**
+   * Represents a builder of a {@link EnumResolver}.
+   *
+   * @param <E> enum type
+   */
+  public static final class Builder<E extends Enum<E>> {
+
+    private final Class<E> type;
+    private final Map<String, E> table = new LinkedHashMap<>();
+    private final List<String> completions = new ArrayList<>();
+
+    private Builder(Class<E> type) {
+      this.type = Preconditions.checkNotNull(type, "type");
+      for (E constant : type.getEnumConstants()) {
+        put(constant.name(), constant);
+        completions.add(constant.name().toLowerCase(Locale.ROOT));
+      }
+    }
+
+    /**
+     * Makes the constants also resolve from the numbers the specified function gives them, e.g.
+     * <code>0</code> for the first constant with {@link Enum#ordinal()}. The numbers aren't
+     * completed.
+     *
+     * @param numbers the function giving the number of a constant
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder<E> numbers(@NotNull ToIntFunction<? super E> numbers) {
+      Preconditions.checkNotNull(numbers, "numbers");
+      for (E constant : type.getEnumConstants()) {
+        put(Integer.toString(numbers.applyAsInt(constant)), constant);
+      }
+      return this;
+    }
+
+    /**
+     * Makes the specified constant also resolve from the specified alias, case insensitive.
+     * Aliases are completed along with the names.
+     *
+     * @param alias the alias
+     * @param constant the constant
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder<E> alias(@NotNull String alias, @NotNull E constant) {
+      Preconditions.checkNotNull(alias, "alias");
+      Preconditions.checkNotNull(constant, "constant");
+      put(alias, constant);
+      completions.add(alias);
+      return this;
+    }
+
+    /**
+     * Makes the specified constant also resolve from the specified alias, case insensitive, without
+     * completing the alias, e.g. for numbers or abbreviations.
+     *
+     * @param alias the alias
+     * @param constant the constant
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder<E> hiddenAlias(@NotNull String alias, @NotNull E constant) {
+      Preconditions.checkNotNull(alias, "alias");
+      Preconditions.checkNotNull(constant, "constant");
+      put(alias, constant);
+      return this;
+    }
+
+    @NotNull
+    public EnumResolver<E> build() {
+      return new EnumResolver<>(type, table, completions);
+    }
+
+    private void put(String key, E constant) {
+      Preconditions.checkArgument(!key.isEmpty(), "Keys can't be empty");
+      // folded the way equalsIgnoreCase compares, so keys only it tells apart are caught here
+      String folded = key.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+      E existing = table.putIfAbsent(folded, constant);
+      Preconditions.checkArgument(
+          existing == null || existing == constant,
+          "'%s' resolves to both %s and %s",
+          key,
+          existing,
+          constant);
+    }
+  }
+}
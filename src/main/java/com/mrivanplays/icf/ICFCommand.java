@@ -29,6 +29,10 @@ public abstract class ICFCommand {
 
   private boolean playerOnly;
   private String permission;
+  private boolean async;
+  private RateLimiter rateLimiter;
+  // set when registered, for the manager's permission cache
+  CommandManager commandManager;
 
   public ICFCommand() {
     this(false);
@@ -81,13 +85,65 @@ public abstract class ICFCommand {
   }
 
   /**
-   * Returns whenever the {@link CommandSender} has permission to execute this command.
+   * Returns whenever this command is executed off the server thread.
+   *
+   * @return <code>true</code> if async, otherwise <code>false</code>
+   */
+  public boolean isAsync() {
+    return async;
+  }
+
+  /**
+   * Sets if this command should be executed off the server thread, on the executor of the {@link
+   * CommandManager} it was registered with. The player only and permission checks still happen on
+   * the server thread. Use {@link CommandManager#runSync(Runnable)} or {@link
+   * CommandManager#supplySync(java.util.function.Supplier)} to get back on the server thread.
+   *
+   * @param async value
+   * @see CommandManager#setCommandExecutor(java.util.concurrent.Executor)
+   */
+  public void setAsync(boolean async) {
+    this.async = async;
+  }
+
+  /**
+   * Gets the rate limiter of this command.
+   *
+   * @return rate limiter, may be null
+   */
+  @Nullable
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  /**
+   * Sets a rate limiter for this command, which is checked after the player only and permission
+   * checks, before the command gets executed. A player which is being limited gets the {@link
+   * CommandManager#getRateLimitedMessage()} instead.
+   *
+   * @param rateLimiter rate limiter, or null for none
+   */
+  public void setRateLimiter(@Nullable RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  /**
+   * Returns whenever the {@link CommandSender} has permission to execute this command. If the
+   * command is registered with a {@link CommandManager} which has a {@link PermissionCache}, the
+   * decision may come from the cache.
    *
    * @param sender the sender you wish to check if has a permission
    * @return <code>true</code> if has permission, otherwise <code>false</code>
    */
   public boolean hasPermission(@NotNull CommandSender sender) {
-    return permission == null || permission.isEmpty() || sender.hasPermission(permission);
+    if (permission == null || permission.isEmpty()) {
+      return true;
+    }
+    PermissionCache permissionCache =
+        commandManager != null ? commandManager.getPermissionCache() : null;
+    return permissionCache != null
+        ? permissionCache.hasPermission(sender, permission)
+        : sender.hasPermission(permission);
   }
 
   /**
@@ -0,0 +1,446 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a argument resolver of a list of elements, separated by commas by default, like
+ * <code>1,5,9</code> or <code>Notch,jeb_</code>. Lists of <code>int</code>s, <code>long</code>s and
+ * <code>double</code>s are parsed straight into primitive arrays, in a single scan, without
+ * splitting the argument. Lists of <code>int</code>s and <code>long</code>s may also contain
+ * ranges, like <code>1-50</code>.
+ *
+ * <p>Resolving a list which has a element that can't be resolved, or more elements than allowed,
+ * resolves to null instead of throwing a exception. Use {@link
+ * CommandArguments#nextList(ListResolver)} or {@link CommandArguments#nextRemainingList(
+ * ListResolver)} to know the index of the element which failed, with {@link
+ * ArgumentOptional#getFailIndex()}.
+ *
+ * @param <T> resolved to type, a primitive array or a list
+ */
+public final class ListResolver<T> implements ArgumentResolver<T> {
+
+  private static final int INT = 0;
+  private static final int LONG = 1;
+  private static final int DOUBLE = 2;
+  private static final int RESOLVER = 3;
+
+  /**
+   * Creates a new builder of a resolver of <code>int</code> lists.
+   *
+   * @return builder
+   */
+  @NotNull
+  public static Builder<int[]> ints() {
+    return new Builder<>(INT, null);
+  }
+
+  /**
+   * Creates a new builder of a resolver of <code>long</code> lists.
+   *
+   * @return builder
+   */
+  @NotNull
+  public static Builder<long[]> longs() {
+    return new Builder<>(LONG, null);
+  }
+
+  /**
+   * Creates a new builder of a resolver of <code>double</code> lists.
+   *
+   * @return builder
+   */
+  @NotNull
+  public static Builder<double[]> doubles() {
+    return new Builder<>(DOUBLE, null);
+  }
+
+  /**
+   * Creates a new builder of a resolver of lists, whose elements get resolved with the specified
+   * resolver.
+   *
+   * @param elementResolver the resolver of the elements
+   * @param <E> element type
+   * @return builder
+   */
+  @NotNull
+  public static <E> Builder<List<E>> of(@NotNull ArgumentResolver<E> elementResolver) {
+    Preconditions.checkNotNull(elementResolver, "elementResolver");
+    return new Builder<>(RESOLVER, elementResolver);
+  }
+
+  private final int kind;
+  private final ArgumentResolver<?> elementResolver;
+  private final char separator;
+  private final boolean ranges;
+  private final int maxSize;
+
+  private ListResolver(Builder<T> builder) {
+    this.kind = builder.kind;
+    this.elementResolver = builder.elementResolver;
+    this.separator = builder.separator;
+    this.ranges = builder.ranges;
+    this.maxSize = builder.maxSize;
+  }
+
+  /**
+   * Resolves the list in the specified input.
+   *
+   * @param input the input argument to resolve
+   * @return list, or null if a element can't be resolved or there are too many elements
+   */
+  @Nullable
+  @Override
+  public T resolve(@NotNull String input) {
+    Parse parse = new Parse(kind, maxSize);
+    return scan(parse, input) ? result(parse) : null;
+  }
+
+  /**
+   * Resolves a single list of the elements in all of the specified inputs, e.g. the remaining
+   * arguments of a command. Every input may contain more elements, separated as usual.
+   *
+   * @param inputs the input arguments to resolve
+   * @return list, or null if a element can't be resolved or there are too many elements
+   */
+  @Nullable
+  public T resolveAll(@NotNull String... inputs) {
+    Preconditions.checkNotNull(inputs, "inputs");
+    ArgumentOptional<T> resolved = parse(inputs, 0, inputs.length);
+    return resolved.isPresent() ? resolved.get() : null;
+  }
+
+  /**
+   * Returns the maximum amount of elements, counting the elements of the ranges, a list may have.
+   *
+   * @return max size
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  ArgumentOptional<T> parse(String[] inputs, int from, int to) {
+    Parse parse = new Parse(kind, maxSize);
+    for (int i = from; i < to; i++) {
+      if (!scan(parse, inputs[i])) {
+        return ArgumentOptional.failedAt(parse.failReason, parse.index);
+      }
+    }
+    return ArgumentOptional.of(result(parse), FailReason.NO_FAIL_REASON);
+  }
+
+  private boolean scan(Parse parse, String input) {
+    int length = input.length();
+    int start = 0;
+    while (true) {
+      int end = input.indexOf(separator, start);
+      if (end == -1) {
+        end = length;
+      }
+      if (!element(parse, input, start, end)) {
+        return false;
+      }
+      parse.index++;
+      if (end == length) {
+        return true;
+      }
+      start = end + 1;
+    }
+  }
+
+  private boolean element(Parse parse, String input, int start, int end) {
+    if (start == end) {
+      return parse.fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+    }
+    switch (kind) {
+      case INT:
+        return number(parse, input, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+      case LONG:
+        return number(parse, input, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+      case DOUBLE:
+        if (!PrimitiveParsers.isDecimal(input, start, end) || !parse.reserve(1)) {
+          return parse.fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+        }
+        // validated already, so this can't throw
+        parse.doubles[parse.size++] = Double.parseDouble(substring(input, start, end));
+        return true;
+      default:
+        if (parse.size == maxSize) {
+          return parse.fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+        }
+        Object value;
+        try {
+          value = elementResolver.resolve(substring(input, start, end));
+        } catch (Throwable error) {
+          return parse.fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+        }
+        if (value == null) {
+          return parse.fail(FailReason.ARGUMENT_PARSED_NULL);
+        }
+        parse.objects.add(value);
+        parse.size++;
+        return true;
+    }
+  }
+
+  private boolean number(Parse parse, String input, int start, int end, long min, long max) {
+    // the first character may be the sign of a number, rather than the dash of a range
+    int dash = ranges ? input.indexOf('-', start + 1) : -1;
+    if (dash == -1 || dash >= end) {
+      if (!parseNumber(parse, input, start, end, min, max) || !parse.reserve(1)) {
+        return parse.fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+      }
+      parse.add(parse.number);
+      return true;
+    }
+    if (!parseNumber(parse, input, start, dash, min, max)) {
+      return parse.fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+    }
+    long lower = parse.number;
+    if (!parseNumber(parse, input, dash + 1, end, min, max) || lower > parse.number) {
+      return parse.fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+    }
+    long upper = parse.number;
+    // the difference of the bounds can't be negative, but may overflow to a negative long
+    long remaining = maxSize - parse.size;
+    if (remaining == 0 || Long.compareUnsigned(upper - lower, remaining - 1) > 0) {
+      return parse.fail(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+    }
+    parse.reserve((int) (upper - lower + 1));
+    for (long value = lower; ; value++) {
+      parse.add(value);
+      if (value == upper) {
+        return true;
+      }
+    }
+  }
+
+  // accumulating negatively, as the negative range is bigger than the positive one
+  private static boolean parseNumber(
+      Parse parse, String input, int start, int end, long min, long max) {
+    if (start == end) {
+      return false;
+    }
+    int i = start;
+    boolean negative = false;
+    char first = input.charAt(start);
+    if (first == '-' || first == '+') {
+      if (end - start == 1) {
+        return false;
+      }
+      negative = first == '-';
+      i++;
+    }
+    long limit = negative ? min : -max;
+    long multiplyMin = limit / 10;
+    long result = 0;
+    for (; i < end; i++) {
+      int digit = input.charAt(i) - '0';
+      if (digit < 0 || digit > 9 || result < multiplyMin) {
+        return false;
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        return false;
+      }
+      result -= digit;
+    }
+    parse.number = negative ? result : -result;
+    return true;
+  }
+
+  private static String substring(String input, int start, int end) {
+    return start == 0 && end == input.length() ? input : input.substring(start, end);
+  }
+
+  @SuppressWarnings("unchecked")
+  private T result(Parse parse) {
+    return (T) parse.result();
+  }
+
+  /** The state of a single resolve, with the elements resolved so far. */
+  private static final class Parse {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final int kind;
+    private final int maxSize;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private List<Object> objects;
+    private int size;
+    private int index;
+    private long number;
+    private FailReason failReason;
+
+    Parse(int kind, int maxSize) {
+      this.kind = kind;
+      this.maxSize = maxSize;
+      int capacity = Math.min(INITIAL_CAPACITY, maxSize);
+      switch (kind) {
+        case INT:
+          ints = new int[capacity];
+          break;
+        case LONG:
+          longs = new long[capacity];
+          break;
+        case DOUBLE:
+          doubles = new double[capacity];
+          break;
+        default:
+          objects = new ArrayList<>(capacity);
+          break;
+      }
+    }
+
+    boolean fail(FailReason reason) {
+      failReason = reason;
+      return false;
+    }
+
+    // grows the array to fit the specified amount of elements more, if there may be that many
+    boolean reserve(int count) {
+      int needed = size + count;
+      if (needed > maxSize) {
+        return false;
+      }
+      int capacity = kind == INT ? ints.length : kind == LONG ? longs.length : doubles.length;
+      if (needed > capacity) {
+        int grown = Math.max(needed, (int) Math.min(maxSize, capacity * 2L));
+        if (kind == INT) {
+          ints = Arrays.copyOf(ints, grown);
+        } else if (kind == LONG) {
+          longs = Arrays.copyOf(longs, grown);
+        } else {
+          doubles = Arrays.copyOf(doubles, grown);
+        }
+      }
+      return true;
+    }
+
+    // the space is reserved already
+    void add(long value) {
+      if (kind == INT) {
+        ints[size++] = (int) value;
+      } else {
+        longs[size++] = value;
+      }
+    }
+
+    // trimmed to the size, unless it fits already
+    Object result() {
+      switch (kind) {
+        case INT:
+          return size == ints.length ? ints : Arrays.copyOf(ints, size);
+        case LONG:
+          return size == longs.length ? longs : Arrays.copyOf(longs, size);
+        case DOUBLE:
+          return size == doubles.length ? doubles : Arrays.copyOf(doubles, size);
+        default:
+          return Collections.unmodifiableList(objects);
+      }
+    }
+  }
+
+  /**
+   * Represents a builder of a {@link ListResolver}.
+   *
+   * @param <T> resolved to type
+   */
+  public static final class Builder<T> {
+
+    private final int kind;
+    private final ArgumentResolver<?> elementResolver;
+    private char separator = ',';
+    private boolean ranges;
+    private int maxSize = 256;
+
+    private Builder(int kind, ArgumentResolver<?> elementResolver) {
+      this.kind = kind;
+      this.elementResolver = elementResolver;
+    }
+
+    /**
+     * Sets the character the elements are separated by, which is a comma by default.
+     *
+     * @param separator the separator
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder<T> separator(char separator) {
+      this.separator = separator;
+      return this;
+    }
+
+    /**
+     * Allows ranges of numbers, like <code>1-50</code>, which resolve to every number between and
+     * including both of the bounds. Only <code>int</code> and <code>long</code> lists can have
+     * ranges.
+     *
+     * @return this instance, for chaining
+     * @throws IllegalStateException if this is not a builder of a <code>int</code> or <code>long
+     *     </code> list resolver
+     */
+    @NotNull
+    public Builder<T> ranges() {
+      Preconditions.checkState(
+          kind == INT || kind == LONG, "Only int and long lists can have ranges");
+      this.ranges = true;
+      return this;
+    }
+
+    /**
+     * Sets the maximum amount of elements, counting the elements of the ranges, a list may have,
+     * which is 256 by default. Lists with more elements fail to resolve, so a range like <code>
+     * 1-2000000000</code> can't make the server allocate a huge array.
+     *
+     * @param maxSize the maximum amount of elements
+     * @return this instance, for chaining
+     */
+    @NotNull
+    public Builder<T> maxSize(int maxSize) {
+      Preconditions.checkArgument(maxSize > 0, "maxSize must be positive");
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    /**
+     * Builds the list resolver.
+     *
+     * @return list resolver
+     * @throws IllegalStateException if ranges are allowed and the separator is a dash
+     */
+    @NotNull
+    public ListResolver<T> build() {
+      Preconditions.checkState(
+          !ranges || separator != '-', "The separator can't be a dash when ranges are allowed");
+      return new ListResolver<>(this);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a {@link ArgumentOptional} specialized for <code>long</code> arguments, so the value
+ * doesn't need to be boxed.
+ */
+public final class LongArgumentOptional {
+
+  private static final LongArgumentOptional[] EMPTY;
+
+  static {
+    FailReason[] reasons = FailReason.values();
+    EMPTY = new LongArgumentOptional[reasons.length];
+    for (FailReason reason : reasons) {
+      EMPTY[reason.ordinal()] = new LongArgumentOptional(0, reason);
+    }
+  }
+
+  /**
+   * Creates a new present long argument optional.
+   *
+   * @param value the value of which you want argument optional
+   * @return present argument optional
+   */
+  @NotNull
+  public static LongArgumentOptional of(long value) {
+    return new LongArgumentOptional(value, FailReason.NO_FAIL_REASON);
+  }
+
+  /**
+   * Gets the empty long argument optional for the specified {@link FailReason}. The instances are
+   * shared, so this never allocates.
+   *
+   * @param failReason the fail reason of why this argument optional failed
+   * @return empty argument optional
+   */
+  @NotNull
+  public static LongArgumentOptional empty(@NotNull FailReason failReason) {
+    Preconditions.checkNotNull(failReason, "failReason");
+    return EMPTY[failReason.ordinal()];
+  }
+
+  private final long value;
+  final FailReason failReason;
+
+  private LongArgumentOptional(long value, @NotNull FailReason failReason) {
+    this.value = value;
+    this.failReason = failReason;
+  }
+
+  /**
+   * If value is being present, the executor will get executed and the return value will don't come
+   * in work, otherwise the return value, a <i>rest</i> argument action will execute its {@link
+   * RestArgumentAction#orElse(Consumer)} method if it was called.
+   *
+   * @param action executor of the argument
+   * @return a <i>rest</i> argument action
+   */
+  @NotNull
+  public RestArgumentAction ifPresent(@NotNull LongConsumer action) {
+    if (isPresent()) {
+      action.accept(value);
+    }
+    return RestArgumentAction.of(failReason);
+  }
+
+  /**
+   * Leads the specified argument to a new argument.
+   *
+   * @param mapper mapper for converting the current argument to another
+   * @param <U> new argument type
+   * @return argument optional with the new argument if present or a empty optional if the value was
+   *     not present.
+   */
+  @NotNull
+  public <U> ArgumentOptional<U> map(@NotNull LongFunction<U> mapper) {
+    Preconditions.checkNotNull(mapper, "mapper");
+    if (isPresent()) {
+      U newValue = mapper.apply(value);
+      if (newValue == null) {
+        return ArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NULL);
+      }
+      return ArgumentOptional.of(newValue, failReason);
+    } else {
+      return ArgumentOptional.empty(failReason);
+    }
+  }
+
+  /**
+   * Returns whenever the value is present.
+   *
+   * @return <code>true</code> if value present, <code>false</code> otherwise
+   */
+  public boolean isPresent() {
+    return failReason == FailReason.NO_FAIL_REASON;
+  }
+
+  /**
+   * Gets the specified value if present. If the value is not present, the method will throw a
+   * {@link IllegalStateException}. It is required to use instead {@link #ifPresent(LongConsumer)}
+   * to access the value, which also provides you handling when the value is not present.
+   *
+   * @return value if present
+   * @throws IllegalStateException if value not present
+   */
+  public long getAsLong() {
+    Preconditions.checkState(isPresent(), "Optional is empty");
+    return value;
+  }
+
+  /**
+   * Gets the specified value if present, or the specified default value.
+   *
+   * @param other the value to return if the value is not present
+   * @return value if present, the default value otherwise
+   */
+  public long orElse(long other) {
+    return isPresent() ? value : other;
+  }
+
+  /**
+   * Returns a boxed version of this argument optional.
+   *
+   * @return boxed argument optional
+   */
+  @NotNull
+  public ArgumentOptional<Long> boxed() {
+    return isPresent()
+        ? ArgumentOptional.of(value, failReason)
+        : ArgumentOptional.empty(failReason);
+  }
+}
@@ -0,0 +1,243 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bukkit.ChatColor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a message with placeholders, like <code>{label}</code>, which is parsed once into
+ * literal and placeholder segments. The <code>&amp;</code> color codes of the message get
+ * translated when compiling, the placeholder values are inserted as they are.
+ *
+ * <p>Rendering appends the segments to a builder reused by the thread, so the resulting string is
+ * the only allocation. A message without placeholders renders without allocating at all.
+ */
+public final class MessageTemplate {
+
+  private static final ThreadLocal<StringBuilder> BUILDER =
+      ThreadLocal.withInitial(() -> new StringBuilder(128));
+  // builders grown beyond this by a huge message are not kept around
+  private static final int MAX_RETAINED_CAPACITY = 8192;
+
+  private final String text;
+  private final String[] names;
+  // literals[i] is followed by the value of slots[i], the last literal by nothing
+  private final String[] literals;
+  private final int[] slots;
+
+  private MessageTemplate(String text, String[] names, String[] literals, int[] slots) {
+    this.text = text;
+    this.names = names;
+    this.literals = literals;
+    this.slots = slots;
+  }
+
+  /**
+   * Compiles the specified message. Only the specified placeholder names are placeholders, any
+   * other text in braces is kept as it is.
+   *
+   * @param text the message, which may contain <code>&amp;</code> color codes
+   * @param placeholders the names of the placeholders, without braces, in the order their values
+   *     are given when rendering
+   * @return message template
+   */
+  @NotNull
+  public static MessageTemplate compile(@NotNull String text, @NotNull String... placeholders) {
+    Preconditions.checkNotNull(text, "text");
+    Preconditions.checkNotNull(placeholders, "placeholders");
+    String colorized = ChatColor.translateAlternateColorCodes('&', text);
+    List<String> literals = new ArrayList<>();
+    List<Integer> slots = new ArrayList<>();
+    int literalStart = 0;
+    int open = colorized.indexOf('{');
+    while (open != -1) {
+      int close = colorized.indexOf('}', open + 1);
+      if (close == -1) {
+        break;
+      }
+      int slot = indexOf(placeholders, colorized, open + 1, close);
+      if (slot == -1) {
+        open = colorized.indexOf('{', open + 1);
+        continue;
+      }
+      literals.add(colorized.substring(literalStart, open));
+      slots.add(slot);
+      literalStart = close + 1;
+      open = colorized.indexOf('{', literalStart);
+    }
+    literals.add(colorized.substring(literalStart));
+    int[] slotArray = new int[slots.size()];
+    for (int i = 0; i < slotArray.length; i++) {
+      slotArray[i] = slots.get(i);
+    }
+    return new MessageTemplate(
+        colorized, placeholders.clone(), literals.toArray(new String[0]), slotArray);
+  }
+
+  private static int indexOf(String[] placeholders, String text, int start, int end) {
+    for (int i = 0; i < placeholders.length; i++) {
+      String name = placeholders[i];
+      if (name.length() == end - start && text.startsWith(name, start)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the color translated message, with its placeholders not replaced.
+   *
+   * @return message
+   */
+  @NotNull
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Gets the names of the placeholders, in the order their values are given when rendering.
+   *
+   * @return placeholder names
+   */
+  @NotNull
+  public List<String> getPlaceholders() {
+    return Arrays.asList(names.clone());
+  }
+
+  /**
+   * Returns whenever the message contains any of its placeholders.
+   *
+   * @return <code>true</code> if it has placeholders, otherwise <code>false</code>
+   */
+  public boolean hasPlaceholders() {
+    return slots.length > 0;
+  }
+
+  /**
+   * Renders the message with the value of the first placeholder. Placeholders without a value are
+   * kept as they are.
+   *
+   * @param first the value of the first placeholder
+   * @return message
+   */
+  @NotNull
+  public String render(@Nullable String first) {
+    return render(first, null, null, null);
+  }
+
+  /**
+   * Renders the message with the values of the first two placeholders. Placeholders without a
+   * value are kept as they are.
+   *
+   * @param first the value of the first placeholder
+   * @param second the value of the second placeholder
+   * @return message
+   */
+  @NotNull
+  public String render(@Nullable String first, @Nullable String second) {
+    return render(first, second, null, null);
+  }
+
+  /**
+   * Renders the message with the values of the first three placeholders. Placeholders without a
+   * value are kept as they are.
+   *
+   * @param first the value of the first placeholder
+   * @param second the value of the second placeholder
+   * @param third the value of the third placeholder
+   * @return message
+   */
+  @NotNull
+  public String render(@Nullable String first, @Nullable String second, @Nullable String third) {
+    return render(first, second, third, null);
+  }
+
+  /**
+   * Renders the message with the specified values, in the order of the placeholders. Placeholders
+   * without a value are kept as they are.
+   *
+   * @param values the values of the placeholders
+   * @return message
+   */
+  @NotNull
+  public String render(@NotNull String... values) {
+    Preconditions.checkNotNull(values, "values");
+    return render(null, null, null, values);
+  }
+
+  /**
+   * Appends the message, rendered with the specified values in the order of the placeholders, to
+   * the specified builder. Placeholders without a value are kept as they are.
+   *
+   * @param builder the builder to append to
+   * @param values the values of the placeholders
+   */
+  public void renderTo(@NotNull StringBuilder builder, @NotNull String... values) {
+    Preconditions.checkNotNull(builder, "builder");
+    Preconditions.checkNotNull(values, "values");
+    append(builder, null, null, null, values);
+  }
+
+  private String render(String first, String second, String third, String[] values) {
+    if (slots.length == 0) {
+      return text;
+    }
+    StringBuilder builder = BUILDER.get();
+    builder.setLength(0);
+    append(builder, first, second, third, values);
+    String message = builder.toString();
+    if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+      BUILDER.remove();
+    }
+    return message;
+  }
+
+  private void append(
+      StringBuilder builder, String first, String second, String third, String[] values) {
+    for (int i = 0; i < slots.length; i++) {
+      builder.append(literals[i]);
+      int slot = slots[i];
+      String value;
+      if (values != null) {
+        value = slot < values.length ? values[slot] : null;
+      } else {
+        value = slot == 0 ? first : slot == 1 ? second : slot == 2 ? third : null;
+      }
+      if (value != null) {
+        builder.append(value);
+      } else {
+        builder.append('{').append(names[slot]).append('}');
+      }
+    }
+    builder.append(literals[slots.length]);
+  }
+
+  @Override
+  public String toString() {
+    return text;
+  }
+}
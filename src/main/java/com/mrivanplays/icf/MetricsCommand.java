@@ -0,0 +1,102 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+/** The <code>/icf stats</code> command, showing the metrics of a {@link CommandManager}. */
+final class MetricsCommand extends BaseCommand {
+
+  private static final String PERMISSION = "icf.stats";
+
+  static BaseCommand create(CommandManager commandManager) {
+    BaseCommand stats = new MetricsCommand(commandManager, "stats", false);
+    stats.addSubcommand(new MetricsCommand(commandManager, "reset", true));
+    return new BaseCommand(false, PERMISSION, "icf") {
+      @Override
+      public void execute(
+          @NotNull CommandSender sender, @NotNull String label, @NotNull CommandArguments args) {
+        sender.sendMessage(ChatColor.RED + "Usage: /" + label + " stats [reset]");
+      }
+    }.addSubcommand(stats);
+  }
+
+  private final CommandManager commandManager;
+  private final boolean reset;
+
+  private MetricsCommand(CommandManager commandManager, String name, boolean reset) {
+    super(false, PERMISSION, name);
+    this.commandManager = commandManager;
+    this.reset = reset;
+  }
+
+  @Override
+  public void execute(
+      @NotNull CommandSender sender, @NotNull String label, @NotNull CommandArguments args) {
+    CommandMetrics metrics = commandManager.getMetrics();
+    if (metrics == null) {
+      sender.sendMessage(ChatColor.RED + "Command metrics are disabled.");
+      return;
+    }
+    if (reset) {
+      metrics.reset();
+      sender.sendMessage(ChatColor.GREEN + "Command metrics were reset.");
+      return;
+    }
+    List<CommandStats> all = metrics.getAllStats();
+    String plugin = commandManager.getPlugin().getName();
+    sender.sendMessage(ChatColor.GOLD + "Commands of " + plugin + ", slowest first:");
+    if (all.isEmpty()) {
+      sender.sendMessage(ChatColor.GRAY + "Nothing recorded yet.");
+    }
+    for (CommandStats stats : all) {
+      LatencyHistogram execute = stats.getExecuteLatency();
+      LatencyHistogram tabComplete = stats.getTabCompleteLatency();
+      sender.sendMessage(
+          ChatColor.YELLOW
+              + "/"
+              + stats.getLabel()
+              + ChatColor.GRAY
+              + String.format(
+                  ": %d runs, total %d ms, avg %s, p99 %s, max %s; %d completions, p99 %s;"
+                      + " %d bad arguments, %d denied, %d from console, %d rate limited",
+                  stats.getInvocations(),
+                  execute.getTotal(TimeUnit.MILLISECONDS),
+                  millis(execute.getMean()),
+                  millis(execute.getValueAtPercentile(99)),
+                  millis(execute.getMax()),
+                  tabComplete.getCount(),
+                  millis(tabComplete.getValueAtPercentile(99)),
+                  stats.getFailures(),
+                  stats.getPermissionRejections(),
+                  stats.getConsoleRejections(),
+                  stats.getRateLimitRejections()));
+    }
+  }
+
+  private static String millis(double nanos) {
+    return String.format("%.2f ms", nanos / TimeUnit.MILLISECONDS.toNanos(1));
+  }
+}
@@ -0,0 +1,257 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a asynchronous resolver of offline players by their name, which caches the players
+ * found as well as the names of which no player was found. Unlike {@link
+ * ArgumentResolvers#PLAYER_OFFLINE}, which may look the player up from the web on the server
+ * thread, the lookups are made off the server thread and only once per name, no matter how many
+ * times the name gets resolved while it is being looked up.
+ *
+ * <blockquote>
+ *
+ * <pre>
+ *   private final OfflinePlayerCache offlinePlayers =
+ *       new OfflinePlayerCache(plugin, 1000, 5, TimeUnit.MINUTES);
+ *
+ *   public void execute(CommandSender cs, String label, CommandArguments args) {
+ *     args.nextAsync(offlinePlayers).thenAccept(player -&gt; commandManager.runSync(() -&gt;
+ *       player.ifPresent(target (lambda) {
+ *         // handling
+ *       }).orElse(failReason (lambda) {
+ *         // handling
+ *       })));
+ *   }
+ * </pre>
+ *
+ * </blockquote>
+ */
+public final class OfflinePlayerCache implements AsyncArgumentResolver<OfflinePlayer> {
+
+  /**
+   * The default lookup source, which resolves the players like {@link
+   * ArgumentResolvers#PLAYER_OFFLINE}, with {@link Bukkit#getOfflinePlayer(String)}. That finds a
+   * player for every name, even of the players who never played on the server.
+   */
+  @SuppressWarnings("deprecation")
+  public static final Source DEFAULT_SOURCE = Bukkit::getOfflinePlayer;
+
+  /**
+   * A lookup source which only finds the players who have played on the server before, or are
+   * online. The names of the other players are cached as not found.
+   */
+  @SuppressWarnings("deprecation")
+  public static final Source PLAYED_BEFORE_SOURCE =
+      name -> {
+        OfflinePlayer player = Bukkit.getOfflinePlayer(name);
+        return player.hasPlayedBefore() || player.isOnline() ? player : null;
+      };
+
+  private final Cache<String, OfflinePlayer> found;
+  private final Cache<String, Boolean> missing;
+  private final ConcurrentMap<String, CompletableFuture<OfflinePlayer>> lookups =
+      new ConcurrentHashMap<>();
+  private final Source source;
+  private final Executor executor;
+
+  /**
+   * Creates a new offline player cache, which looks the players up with the {@link
+   * #DEFAULT_SOURCE} on the asynchronous scheduler of the specified plugin.
+   *
+   * @param plugin the plugin whose asynchronous tasks look the players up
+   * @param maximumSize the maximum amount of names cached, the least recently used get evicted
+   * @param expireMissesAfter the time after which the names no player was found of expire
+   * @param unit the unit of the specified time
+   */
+  public OfflinePlayerCache(
+      @NotNull Plugin plugin, int maximumSize, long expireMissesAfter, @NotNull TimeUnit unit) {
+    this(plugin, maximumSize, expireMissesAfter, unit, DEFAULT_SOURCE);
+  }
+
+  /**
+   * Creates a new offline player cache, which looks the players up with the specified source, e.g.
+   * the {@link #PLAYED_BEFORE_SOURCE}, on the asynchronous scheduler of the specified plugin.
+   *
+   * @param plugin the plugin whose asynchronous tasks look the players up
+   * @param maximumSize the maximum amount of names cached, the least recently used get evicted
+   * @param expireMissesAfter the time after which the names no player was found of expire
+   * @param unit the unit of the specified time
+   * @param source the source the players get looked up from
+   */
+  public OfflinePlayerCache(
+      @NotNull Plugin plugin,
+      int maximumSize,
+      long expireMissesAfter,
+      @NotNull TimeUnit unit,
+      @NotNull Source source) {
+    this(
+        maximumSize,
+        expireMissesAfter,
+        unit,
+        source,
+        task -> Bukkit.getScheduler().runTaskAsynchronously(plugin, task));
+    Preconditions.checkNotNull(plugin, "plugin");
+  }
+
+  /**
+   * Creates a new offline player cache, which looks the players up with the specified source on
+   * the specified executor.
+   *
+   * @param maximumSize the maximum amount of names cached, the least recently used get evicted
+   * @param expireMissesAfter the time after which the names no player was found of expire
+   * @param unit the unit of the specified time
+   * @param source the source the players get looked up from
+   * @param executor the executor the lookups are made on
+   */
+  public OfflinePlayerCache(
+      int maximumSize,
+      long expireMissesAfter,
+      @NotNull TimeUnit unit,
+      @NotNull Source source,
+      @NotNull Executor executor) {
+    Preconditions.checkArgument(maximumSize > 0, "maximumSize must be positive");
+    Preconditions.checkArgument(expireMissesAfter > 0, "expireMissesAfter must be positive");
+    Preconditions.checkNotNull(unit, "unit");
+    this.found = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    this.missing =
+        CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireMissesAfter, unit)
+            .build();
+    this.source = Preconditions.checkNotNull(source, "source");
+    this.executor = Preconditions.checkNotNull(executor, "executor");
+  }
+
+  /**
+   * Resolves the offline player with the specified name, case insensitive. Cached names complete
+   * right away, the others complete once looked up.
+   *
+   * @param name the name of the player
+   * @return future of the player, completing with null if there is no such player
+   */
+  @NotNull
+  @Override
+  public CompletableFuture<OfflinePlayer> resolveAsync(@NotNull String name) {
+    Preconditions.checkNotNull(name, "name");
+    String key = name.toLowerCase(Locale.ROOT);
+    OfflinePlayer cached = found.getIfPresent(key);
+    if (cached != null || missing.getIfPresent(key) != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    CompletableFuture<OfflinePlayer> future = new CompletableFuture<>();
+    CompletableFuture<OfflinePlayer> running = lookups.putIfAbsent(key, future);
+    if (running != null) {
+      return running;
+    }
+    try {
+      executor.execute(() -> lookup(name, key, future));
+    } catch (RejectedExecutionException error) {
+      lookups.remove(key, future);
+      future.completeExceptionally(error);
+    }
+    return future;
+  }
+
+  /**
+   * Gets the offline player with the specified name, case insensitive, if it is cached. This never
+   * looks the player up.
+   *
+   * @param name the name of the player
+   * @return cached player, or null if not cached
+   */
+  @Nullable
+  public OfflinePlayer getIfCached(@NotNull String name) {
+    Preconditions.checkNotNull(name, "name");
+    return found.getIfPresent(name.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Removes the specified name from the cache, e.g. when a player with it joined for the first
+   * time.
+   *
+   * @param name the name of the player
+   */
+  public void invalidate(@NotNull String name) {
+    Preconditions.checkNotNull(name, "name");
+    String key = name.toLowerCase(Locale.ROOT);
+    found.invalidate(key);
+    missing.invalidate(key);
+  }
+
+  /** Removes all the cached names. */
+  public void invalidateAll() {
+    found.invalidateAll();
+    missing.invalidateAll();
+  }
+
+  private void lookup(String name, String key, CompletableFuture<OfflinePlayer> future) {
+    OfflinePlayer player;
+    try {
+      player = source.lookup(name);
+    } catch (Throwable error) {
+      // not cached, so it gets looked up again the next time
+      lookups.remove(key, future);
+      future.completeExceptionally(error);
+      return;
+    }
+    if (player != null) {
+      found.put(key, player);
+    } else {
+      missing.put(key, Boolean.TRUE);
+    }
+    lookups.remove(key, future);
+    future.complete(player);
+  }
+
+  /**
+   * Represents a source the offline players get looked up from. The lookups are made off the
+   * server thread, so they may block.
+   */
+  @FunctionalInterface
+  public interface Source {
+
+    /**
+     * Looks the player with the specified name up.
+     *
+     * @param name the name of the player
+     * @return the player, or null if there is no such player
+     */
+    @Nullable
+    OfflinePlayer lookup(@NotNull String name) throws Exception;
+  }
+}
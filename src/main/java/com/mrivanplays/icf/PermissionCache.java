@@ -0,0 +1,147 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a cache of permission decisions, which can be enabled with {@link
+ * CommandManager#setPermissionCache(PermissionCache)}. When enabled, the permission checks of
+ * command execution, tab completion and the filtering of the commands sent to players reuse the
+ * decisions made within the specified time, instead of asking the permission plugin again.
+ *
+ * <p>Only the decisions for players are cached. They are removed when the player quits, and can be
+ * removed with {@link #invalidate(UUID)} or {@link #invalidateAll()}, e.g. when the permissions of
+ * players change. The expired decisions are swept lazily, while checking permissions.
+ *
+ * <p>Every decision is a single timestamp, reused when the decision expires, with the decided value
+ * in its lowest bit.
+ */
+public final class PermissionCache implements Listener {
+
+  private static final long MIN_SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+
+  private final Map<UUID, Map<String, AtomicLong>> decisions = new ConcurrentHashMap<>();
+  private final long expireAfterNanos;
+  private final long sweepIntervalNanos;
+  private final AtomicLong nextSweep;
+
+  /**
+   * Creates a new permission cache. A duration of 50 milliseconds makes the decisions last for
+   * about a server tick.
+   *
+   * @param expireAfter the time after which cached decisions expire
+   * @param unit the unit of the specified time
+   */
+  public PermissionCache(long expireAfter, @NotNull TimeUnit unit) {
+    Preconditions.checkArgument(expireAfter > 0, "expireAfter must be positive");
+    Preconditions.checkNotNull(unit, "unit");
+    this.expireAfterNanos = unit.toNanos(expireAfter);
+    this.sweepIntervalNanos = Math.max(expireAfterNanos, MIN_SWEEP_INTERVAL);
+    this.nextSweep = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
+  }
+
+  /**
+   * Returns whenever the specified {@link CommandSender} has the specified permission, reusing the
+   * cached decision if there is one.
+   *
+   * @param sender the sender you wish to check if has a permission
+   * @param permission the permission
+   * @return <code>true</code> if has permission, otherwise <code>false</code>
+   */
+  public boolean hasPermission(@NotNull CommandSender sender, @NotNull String permission) {
+    if (!(sender instanceof Player)) {
+      return sender.hasPermission(permission);
+    }
+    long now = System.nanoTime();
+    long next = nextSweep.get();
+    if (now - next >= 0 && nextSweep.compareAndSet(next, now + sweepIntervalNanos)) {
+      sweep(now);
+    }
+    Player player = (Player) sender;
+    UUID uuid = player.getUniqueId();
+    Map<String, AtomicLong> playerDecisions = decisions.get(uuid);
+    AtomicLong decision = playerDecisions == null ? null : playerDecisions.get(permission);
+    if (decision != null) {
+      long decided = decision.get();
+      if (now - decided < expireAfterNanos) {
+        return (decided & 1) != 0;
+      }
+    }
+    boolean value = sender.hasPermission(permission);
+    long decided = value ? now | 1 : now & ~1L;
+    if (decision != null) {
+      decision.set(decided);
+      return value;
+    }
+    if (playerDecisions == null) {
+      playerDecisions = decisions.computeIfAbsent(uuid, key -> new ConcurrentHashMap<>());
+    }
+    playerDecisions.put(permission, new AtomicLong(decided));
+    if (!player.isOnline()) {
+      // checked off the server thread after the player quit, which must not cache them again
+      decisions.remove(uuid, playerDecisions);
+    }
+    return value;
+  }
+
+  /**
+   * Removes the cached decisions of the player with the specified unique id.
+   *
+   * @param uuid the unique id of the player
+   */
+  public void invalidate(@NotNull UUID uuid) {
+    Preconditions.checkNotNull(uuid, "uuid");
+    decisions.remove(uuid);
+  }
+
+  /** Removes all the cached decisions. */
+  public void invalidateAll() {
+    decisions.clear();
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onQuit(PlayerQuitEvent event) {
+    invalidate(event.getPlayer().getUniqueId());
+  }
+
+  private void sweep(long now) {
+    for (Map.Entry<UUID, Map<String, AtomicLong>> entry : decisions.entrySet()) {
+      Map<String, AtomicLong> playerDecisions = entry.getValue();
+      playerDecisions.values().removeIf(decision -> now - decision.get() >= expireAfterNanos);
+      if (playerDecisions.isEmpty()) {
+        decisions.remove(entry.getKey(), playerDecisions);
+      }
+    }
+  }
+}
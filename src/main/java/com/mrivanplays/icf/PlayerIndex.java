@@ -0,0 +1,280 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a case insensitive index of the online players' names, which can be enabled with
+ * {@link CommandManager#setPlayerIndex(PlayerIndex)}. The names are kept in a trie, updated when
+ * players join and quit, so finding a player by name or by a prefix of it takes time
+ * proportional to the length of the name, instead of going through all of the online players.
+ *
+ * <p>Unlike {@link Bukkit#getPlayer(String)}, which picks the shortest name starting with the
+ * prefix, {@link #getPlayer(String)} only resolves a prefix when exactly one online player's name
+ * starts with it.
+ */
+public final class PlayerIndex implements Listener {
+
+  private final Node root = new Node();
+  private final ArgumentResolver<Player> resolver = this::getPlayer;
+  private final ArgumentResolver<Player> exactResolver = this::getPlayerExact;
+  private final TabCompleter completer =
+      (sender, label, args) -> {
+        String prefix = args.size() == 0 ? "" : args.peek(args.size() - 1);
+        // the sender may not see all of them, so they must not be cached for the others
+        return SenderCompletions.of(complete(sender, prefix, Integer.MAX_VALUE));
+      };
+
+  /** Creates a new player index, containing the players online at the moment. */
+  public PlayerIndex() {
+    for (Player player : Bukkit.getOnlinePlayers()) {
+      add(player);
+    }
+  }
+
+  /**
+   * Gets the online player with the specified name, case insensitive, or the only online player
+   * whose name starts with the specified name.
+   *
+   * @param name the name or the beginning of the name of the player
+   * @return player, or null if there is no such player or more players' names start with it
+   */
+  @Nullable
+  public synchronized Player getPlayer(@NotNull String name) {
+    Node node = find(name);
+    if (node == null) {
+      return null;
+    }
+    if (node.player != null) {
+      return node.player;
+    }
+    if (node.count != 1) {
+      return null;
+    }
+    // nodes without players under them get removed, so this path leads to the only player
+    while (node.player == null) {
+      node = node.children[0];
+    }
+    return node.player;
+  }
+
+  /**
+   * Gets the online player with the specified name, case insensitive.
+   *
+   * @param name the name of the player
+   * @return player, or null if there is no such player
+   */
+  @Nullable
+  public synchronized Player getPlayerExact(@NotNull String name) {
+    Node node = find(name);
+    return node == null ? null : node.player;
+  }
+
+  /**
+   * Gets the names of the online players starting with the specified prefix, case insensitive, in
+   * case insensitive order. If the sender is a player, the players it can't see are left out.
+   *
+   * @param sender the sender which is completing
+   * @param prefix the prefix the names should start with
+   * @param limit the maximum amount of names to return
+   * @return names starting with the prefix
+   */
+  @NotNull
+  public synchronized List<String> complete(
+      @NotNull CommandSender sender, @NotNull String prefix, int limit) {
+    Preconditions.checkNotNull(sender, "sender");
+    Preconditions.checkArgument(limit >= 0, "limit can't be negative");
+    Node node = find(prefix);
+    if (node == null || limit == 0) {
+      return Collections.emptyList();
+    }
+    List<String> names = new ArrayList<>(Math.min(node.count, limit));
+    collect(node, sender instanceof Player ? (Player) sender : null, names, limit);
+    return names;
+  }
+
+  /**
+   * Returns a argument resolver, resolving the arguments with {@link #getPlayer(String)}.
+   *
+   * @return player argument resolver
+   */
+  @NotNull
+  public ArgumentResolver<Player> resolver() {
+    return resolver;
+  }
+
+  /**
+   * Returns a argument resolver, resolving the arguments with {@link #getPlayerExact(String)}.
+   *
+   * @return exact player argument resolver
+   */
+  @NotNull
+  public ArgumentResolver<Player> exactResolver() {
+    return exactResolver;
+  }
+
+  /**
+   * Returns a tab completer, completing the last argument with the names of the online players the
+   * sender can see. The completions are {@link SenderCompletions}, so they don't get cached.
+   *
+   * @return player name tab completer
+   */
+  @NotNull
+  public TabCompleter completer() {
+    return completer;
+  }
+
+  /**
+   * Returns the count of the players in this index.
+   *
+   * @return players count
+   */
+  public synchronized int size() {
+    return root.count;
+  }
+
+  @EventHandler(priority = EventPriority.LOWEST)
+  public void onJoin(PlayerJoinEvent event) {
+    add(event.getPlayer());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onQuit(PlayerQuitEvent event) {
+    remove(event.getPlayer());
+  }
+
+  synchronized void add(Player player) {
+    String name = player.getName();
+    Node existing = find(name);
+    if (existing != null && existing.player != null) {
+      existing.player = player;
+      return;
+    }
+    Node node = root;
+    node.count++;
+    for (int i = 0; i < name.length(); i++) {
+      node = node.childOrCreate(Character.toLowerCase(name.charAt(i)));
+      node.count++;
+    }
+    node.player = player;
+  }
+
+  synchronized void remove(Player player) {
+    String name = player.getName();
+    Node existing = find(name);
+    if (existing == null
+        || existing.player == null
+        || !existing.player.getUniqueId().equals(player.getUniqueId())) {
+      return;
+    }
+    Node node = root;
+    node.count--;
+    for (int i = 0; i < name.length(); i++) {
+      char key = Character.toLowerCase(name.charAt(i));
+      Node child = node.child(key);
+      if (--child.count == 0) {
+        // nothing is left under it, so the whole branch goes
+        node.removeChild(key);
+        return;
+      }
+      node = child;
+    }
+    node.player = null;
+  }
+
+  private Node find(String name) {
+    Preconditions.checkNotNull(name, "name");
+    Node node = root;
+    for (int i = 0; i < name.length() && node != null; i++) {
+      node = node.child(Character.toLowerCase(name.charAt(i)));
+    }
+    return node;
+  }
+
+  private static void collect(Node node, Player viewer, List<String> names, int limit) {
+    if (node.player != null && (viewer == null || viewer.canSee(node.player))) {
+      names.add(node.player.getName());
+    }
+    for (int i = 0; i < node.size && names.size() < limit; i++) {
+      collect(node.children[i], viewer, names, limit);
+    }
+  }
+
+  private static final class Node {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    // sorted, so the names are completed in order
+    private char[] keys = NO_KEYS;
+    private Node[] children = NO_CHILDREN;
+    private int size;
+    private int count;
+    private Player player;
+
+    Node child(char key) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      return index < 0 ? null : children[index];
+    }
+
+    Node childOrCreate(char key) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      if (index >= 0) {
+        return children[index];
+      }
+      index = -index - 1;
+      if (size == keys.length) {
+        int capacity = Math.max(2, size * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        children = Arrays.copyOf(children, capacity);
+      }
+      System.arraycopy(keys, index, keys, index + 1, size - index);
+      System.arraycopy(children, index, children, index + 1, size - index);
+      Node child = new Node();
+      keys[index] = key;
+      children[index] = child;
+      size++;
+      return child;
+    }
+
+    void removeChild(char key) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+      System.arraycopy(children, index + 1, children, index, size - index - 1);
+      children[--size] = null;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Parsers for primitive arguments which report bad input with {@link
+ * FailReason#ARGUMENT_PARSED_NOT_TYPE} instead of throwing a exception.
+ */
+final class PrimitiveParsers {
+
+  private PrimitiveParsers() {}
+
+  @NotNull
+  static IntArgumentOptional parseInt(@NotNull String input) {
+    int length = input.length();
+    if (length == 0) {
+      return IntArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+    }
+    int i = 0;
+    boolean negative = false;
+    char first = input.charAt(0);
+    if (first == '-' || first == '+') {
+      if (length == 1) {
+        return IntArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+      }
+      negative = first == '-';
+      i++;
+    }
+    // accumulating negatively, as the negative range is bigger than the positive one
+    int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+    int multiplyMin = limit / 10;
+    int result = 0;
+    for (; i < length; i++) {
+      int digit = input.charAt(i) - '0';
+      if (digit < 0 || digit > 9 || result < multiplyMin) {
+        return IntArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        return IntArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+      }
+      result -= digit;
+    }
+    return IntArgumentOptional.of(negative ? result : -result);
+  }
+
+  @NotNull
+  static LongArgumentOptional parseLong(@NotNull String input) {
+    int length = input.length();
+    if (length == 0) {
+      return LongArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+    }
+    int i = 0;
+    boolean negative = false;
+    char first = input.charAt(0);
+    if (first == '-' || first == '+') {
+      if (length == 1) {
+        return LongArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+      }
+      negative = first == '-';
+      i++;
+    }
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multiplyMin = limit / 10;
+    long result = 0;
+    for (; i < length; i++) {
+      int digit = input.charAt(i) - '0';
+      if (digit < 0 || digit > 9 || result < multiplyMin) {
+        return LongArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        return LongArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+      }
+      result -= digit;
+    }
+    return LongArgumentOptional.of(negative ? result : -result);
+  }
+
+  @NotNull
+  static DoubleArgumentOptional parseDouble(@NotNull String input) {
+    if (!isDecimal(input, 0, input.length())) {
+      return DoubleArgumentOptional.empty(FailReason.ARGUMENT_PARSED_NOT_TYPE);
+    }
+    // the input is already validated, so this can't throw
+    return DoubleArgumentOptional.of(Double.parseDouble(input));
+  }
+
+  // plain decimal notation only, e.g. -1, .5, 2. or 1.5e3 ; no NaN, Infinity or hex
+  static boolean isDecimal(String input, int start, int end) {
+    int i = start;
+    if (i < end && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+      i++;
+    }
+    int digits = 0;
+    while (i < end && isDigit(input.charAt(i))) {
+      i++;
+      digits++;
+    }
+    if (i < end && input.charAt(i) == '.') {
+      i++;
+      while (i < end && isDigit(input.charAt(i))) {
+        i++;
+        digits++;
+      }
+    }
+    if (digits == 0) {
+      return false;
+    }
+    if (i < end && (input.charAt(i) == 'e' || input.charAt(i) == 'E')) {
+      i++;
+      if (i < end && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+        i++;
+      }
+      int exponentDigits = 0;
+      while (i < end && isDigit(input.charAt(i))) {
+        i++;
+        exponentDigits++;
+      }
+      if (exponentDigits == 0) {
+        return false;
+      }
+    }
+    return i == end;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
@@ -0,0 +1,202 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a per player limit of how often a command can be executed, which can be set with
+ * {@link ICFCommand#setRateLimiter(RateLimiter)}. It is a token bucket: every player can execute
+ * the command as many times as the bucket holds permits, and the permits refill one by one,
+ * evenly spread over the specified period. A cooldown is a bucket of a single permit.
+ *
+ * <p>Every player is tracked by a single timestamp, updated without locking, at which their bucket
+ * is full again. Players whose buckets are full are forgotten automatically. Only players are
+ * limited, the console and command blocks are not.
+ */
+public final class RateLimiter {
+
+  // set when a bucket got removed for being full, while another thread may still see it
+  private static final long EXPIRED = Long.MIN_VALUE;
+  private static final long MIN_SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+
+  private final Map<UUID, AtomicLong> buckets = new ConcurrentHashMap<>();
+  private final int permits;
+  // the time a single permit takes to refill
+  private final long intervalNanos;
+  // how far ahead of the present the refill can be, before the bucket is empty
+  private final long toleranceNanos;
+  private final long sweepIntervalNanos;
+  private final AtomicLong nextSweep;
+  private String bypassPermission;
+
+  private RateLimiter(int permits, long periodNanos) {
+    this.permits = permits;
+    this.intervalNanos = Math.max(periodNanos / permits, 1);
+    this.toleranceNanos = intervalNanos * (permits - 1);
+    this.sweepIntervalNanos = Math.max(intervalNanos + toleranceNanos, MIN_SWEEP_INTERVAL);
+    this.nextSweep = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
+  }
+
+  /**
+   * Creates a new rate limiter, allowing a single execution per the specified duration.
+   *
+   * @param duration the duration of the cooldown
+   * @param unit the unit of the specified duration
+   * @return rate limiter
+   */
+  @NotNull
+  public static RateLimiter cooldown(long duration, @NotNull TimeUnit unit) {
+    return tokenBucket(1, duration, unit);
+  }
+
+  /**
+   * Creates a new rate limiter, allowing the specified amount of executions per the specified
+   * period, all of which can happen at once.
+   *
+   * @param permits the amount of executions per period
+   * @param period the period
+   * @param unit the unit of the specified period
+   * @return rate limiter
+   */
+  @NotNull
+  public static RateLimiter tokenBucket(int permits, long period, @NotNull TimeUnit unit) {
+    Preconditions.checkArgument(permits > 0, "permits must be positive");
+    Preconditions.checkArgument(period > 0, "period must be positive");
+    Preconditions.checkNotNull(unit, "unit");
+    return new RateLimiter(permits, unit.toNanos(period));
+  }
+
+  /**
+   * Gets the amount of executions per period this rate limiter allows.
+   *
+   * @return permits
+   */
+  public int getPermits() {
+    return permits;
+  }
+
+  /**
+   * Gets the permission which lets players bypass this rate limiter.
+   *
+   * @return bypass permission, may be null
+   */
+  @Nullable
+  public String getBypassPermission() {
+    return bypassPermission;
+  }
+
+  /**
+   * Sets the permission which lets players bypass this rate limiter. It is checked only when a
+   * player is being limited.
+   *
+   * @param bypassPermission bypass permission
+   * @return this instance, for chaining
+   */
+  @NotNull
+  public RateLimiter setBypassPermission(@Nullable String bypassPermission) {
+    this.bypassPermission = bypassPermission;
+    return this;
+  }
+
+  /**
+   * Takes a permit of the player with the specified unique id, if there is one.
+   *
+   * @param uuid the unique id of the player
+   * @return <code>0</code> if a permit was taken, otherwise the nanoseconds until there is one
+   */
+  public long tryAcquire(@NotNull UUID uuid) {
+    long now = System.nanoTime();
+    long next = nextSweep.get();
+    if (now - next >= 0 && nextSweep.compareAndSet(next, now + sweepIntervalNanos)) {
+      sweep(now);
+    }
+    while (true) {
+      AtomicLong bucket = buckets.get(uuid);
+      if (bucket == null) {
+        bucket = new AtomicLong(now);
+        AtomicLong existing = buckets.putIfAbsent(uuid, bucket);
+        if (existing != null) {
+          bucket = existing;
+        }
+      }
+      long full = bucket.get();
+      if (full == EXPIRED) {
+        buckets.remove(uuid, bucket);
+        continue;
+      }
+      long start = full - now > 0 ? full : now;
+      long wait = start - now - toleranceNanos;
+      if (wait > 0) {
+        return wait;
+      }
+      if (bucket.compareAndSet(full, start + intervalNanos)) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * Refills the bucket of the player with the specified unique id.
+   *
+   * @param uuid the unique id of the player
+   */
+  public void reset(@NotNull UUID uuid) {
+    Preconditions.checkNotNull(uuid, "uuid");
+    AtomicLong bucket = buckets.remove(uuid);
+    if (bucket != null) {
+      bucket.set(EXPIRED);
+    }
+  }
+
+  /** Refills the buckets of all players. */
+  public void resetAll() {
+    for (UUID uuid : buckets.keySet()) {
+      reset(uuid);
+    }
+  }
+
+  /**
+   * Returns the amount of players being tracked, whose buckets are not full.
+   *
+   * @return tracked players count
+   */
+  public int size() {
+    return buckets.size();
+  }
+
+  private void sweep(long now) {
+    for (Map.Entry<UUID, AtomicLong> entry : buckets.entrySet()) {
+      AtomicLong bucket = entry.getValue();
+      long full = bucket.get();
+      if (full != EXPIRED && full - now <= 0 && bucket.compareAndSet(full, EXPIRED)) {
+        buckets.remove(entry.getKey(), bucket);
+      }
+    }
+  }
+}
@@ -30,8 +30,32 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class RestArgumentAction {
 
+  private static final RestArgumentAction[] INSTANCES;
+
+  static {
+    FailReason[] reasons = FailReason.values();
+    INSTANCES = new RestArgumentAction[reasons.length];
+    for (FailReason reason : reasons) {
+      INSTANCES[reason.ordinal()] = new RestArgumentAction(reason);
+    }
+  }
+
+  /**
+   * Gets the <i>rest</i> argument action for the specified {@link FailReason}. The instances are
+   * shared, so this never allocates.
+   *
+   * @param failReason the fail reason
+   * @return rest argument action
+   */
+  @NotNull
+  public static RestArgumentAction of(@NotNull FailReason failReason) {
+    return INSTANCES[failReason.ordinal()];
+  }
+
   private final FailReason failReason;
 
+  /** @deprecated use {@link #of(FailReason)}, which returns a shared instance */
+  @Deprecated
   public RestArgumentAction(FailReason failReason) {
     this.failReason = failReason;
   }
@@ -64,6 +88,8 @@ public final class RestArgumentAction {
    * @param runnable the runnable to run
    */
   public void orElse(@NotNull Runnable runnable) {
-    orElse(failReason -> runnable.run());
+    if (failReason != FailReason.NO_FAIL_REASON) {
+      runnable.run();
+    }
   }
 }
@@ -0,0 +1,66 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents tab completions specific to the sender they were completed for, e.g. the names of the
+ * players the sender can see. A {@link TabCompleter} returning them, also when a command just
+ * returns what another completer gave it, makes sure they're never cached by the {@link
+ * TabCompletionCache}, so other senders never get them.
+ */
+public final class SenderCompletions extends AbstractList<String> implements RandomAccess {
+
+  /**
+   * Marks the specified completions as specific to the sender they were completed for.
+   *
+   * @param completions the completions
+   * @return sender completions
+   */
+  @NotNull
+  public static SenderCompletions of(@NotNull List<String> completions) {
+    Preconditions.checkNotNull(completions, "completions");
+    return completions instanceof SenderCompletions
+        ? (SenderCompletions) completions
+        : new SenderCompletions(completions);
+  }
+
+  private final List<String> completions;
+
+  private SenderCompletions(List<String> completions) {
+    this.completions = completions;
+  }
+
+  @Override
+  public String get(int index) {
+    return completions.get(index);
+  }
+
+  @Override
+  public int size() {
+    return completions.size();
+  }
+}
@@ -0,0 +1,285 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a case insensitive index of words, which finds the words within a edit distance of a
+ * input, e.g. to tell the sender what they meant after mistyping a subcommand. The words are kept
+ * in a BK-tree, so a lookup only measures the distance to a small part of them, instead of all of
+ * them.
+ *
+ * <p>The distance is the Levenshtein distance: the amount of characters which have to be inserted,
+ * removed or replaced to turn one word into another. Creating a index measures a lot of distances,
+ * so it should be created once and reused.
+ */
+public final class SuggestionIndex implements SuggestionProvider {
+
+  private static final SuggestionIndex EMPTY = new SuggestionIndex(null, 0);
+  private static final int DEFAULT_LIMIT = 3;
+
+  /**
+   * Creates a new suggestion index of the specified words. Words which only differ by case are
+   * indexed once.
+   *
+   * @param words the words
+   * @return suggestion index
+   */
+  @NotNull
+  public static SuggestionIndex of(@NotNull Collection<String> words) {
+    Preconditions.checkNotNull(words, "words");
+    if (words.isEmpty()) {
+      return EMPTY;
+    }
+    Node root = null;
+    int size = 0;
+    int[][] rows = new int[2][];
+    for (String word : words) {
+      Preconditions.checkNotNull(word, "words contains null");
+      Node node = new Node(word);
+      if (root == null) {
+        root = node;
+        size++;
+      } else if (insert(root, node, rows)) {
+        size++;
+      }
+    }
+    return new SuggestionIndex(root, size);
+  }
+
+  private static boolean insert(Node root, Node node, int[][] rows) {
+    Node parent = root;
+    while (true) {
+      int distance = distance(node.key, parent.key, Integer.MAX_VALUE - 1, rows);
+      if (distance == 0) {
+        return false;
+      }
+      Node child = parent.getChild(distance);
+      if (child == null) {
+        parent.addChild(distance, node);
+        return true;
+      }
+      parent = child;
+    }
+  }
+
+  private final Node root;
+  private final int size;
+
+  private SuggestionIndex(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Suggests the closest words to the specified input, within a edit distance of 1 for inputs of
+   * up to 5 characters, 2 for longer ones, at most 3 of them.
+   *
+   * @param input the input
+   * @return suggestions, the closest first
+   */
+  @NotNull
+  @Override
+  public List<String> suggest(@NotNull String input) {
+    Preconditions.checkNotNull(input, "input");
+    return suggest(input, input.length() <= 5 ? 1 : 2, DEFAULT_LIMIT);
+  }
+
+  /**
+   * Suggests the closest words to the specified input, within the specified edit distance. Words
+   * at the same distance are sorted alphabetically.
+   *
+   * @param input the input
+   * @param maxDistance the maximum edit distance of the suggested words
+   * @param limit the maximum amount of suggestions
+   * @return suggestions, the closest first
+   */
+  @NotNull
+  public List<String> suggest(@NotNull String input, int maxDistance, int limit) {
+    return suggest(input, maxDistance, limit, word -> true);
+  }
+
+  /**
+   * Suggests the closest words to the specified input, which the specified filter accepts, within
+   * the same edit distance and limit as {@link #suggest(String)}. Words the filter rejects don't
+   * take up the places of the ones it accepts.
+   *
+   * @param input the input
+   * @param filter the filter of the suggested words
+   * @return suggestions, the closest first
+   */
+  @NotNull
+  public List<String> suggest(@NotNull String input, @NotNull Predicate<String> filter) {
+    Preconditions.checkNotNull(input, "input");
+    return suggest(input, input.length() <= 5 ? 1 : 2, DEFAULT_LIMIT, filter);
+  }
+
+  private List<String> suggest(String input, int maxDistance, int limit, Predicate<String> filter) {
+    Preconditions.checkNotNull(input, "input");
+    Preconditions.checkArgument(maxDistance >= 0, "maxDistance can't be negative");
+    Preconditions.checkArgument(limit > 0, "limit must be positive");
+    Preconditions.checkNotNull(filter, "filter");
+    if (root == null || input.isEmpty()) {
+      return Collections.emptyList();
+    }
+    String key = input.toLowerCase(Locale.ENGLISH);
+    int[][] rows = new int[2][];
+    List<Node> matches = new ArrayList<>();
+    List<Integer> distances = new ArrayList<>();
+    Deque<Node> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      Node node = pending.pop();
+      // farther than this, none of the children can be within the max distance
+      int bound = maxDistance + node.maxEdge;
+      int distance = distance(key, node.key, bound, rows);
+      if (distance > bound) {
+        continue;
+      }
+      if (distance <= maxDistance && filter.test(node.word)) {
+        matches.add(node);
+        distances.add(distance);
+      }
+      for (int i = 0; i < node.count; i++) {
+        if (Math.abs(node.edges[i] - distance) <= maxDistance) {
+          pending.push(node.children[i]);
+        }
+      }
+    }
+    Integer[] order = new Integer[matches.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(
+        order,
+        (first, second) -> {
+          int compare = Integer.compare(distances.get(first), distances.get(second));
+          return compare != 0
+              ? compare
+              : matches.get(first).key.compareTo(matches.get(second).key);
+        });
+    List<String> suggestions = new ArrayList<>(Math.min(limit, order.length));
+    for (int i = 0; i < order.length && i < limit; i++) {
+      suggestions.add(matches.get(order[i]).word);
+    }
+    return suggestions;
+  }
+
+  /**
+   * Returns the amount of indexed words.
+   *
+   * @return size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the Levenshtein distance between the specified words, or <code>bound + 1</code> if it
+   * is more than the bound. The rows are reused between calls, and grown when they're too short.
+   */
+  private static int distance(String first, String second, int bound, int[][] rows) {
+    int firstLength = first.length();
+    int secondLength = second.length();
+    if (Math.abs(firstLength - secondLength) > bound) {
+      return bound + 1;
+    }
+    if (rows[0] == null || rows[0].length < firstLength + 1) {
+      rows[0] = new int[firstLength + 1];
+      rows[1] = new int[firstLength + 1];
+    }
+    int[] previous = rows[0];
+    int[] current = rows[1];
+    for (int i = 0; i <= firstLength; i++) {
+      previous[i] = i;
+    }
+    for (int j = 1; j <= secondLength; j++) {
+      char c = second.charAt(j - 1);
+      current[0] = j;
+      int rowMin = j;
+      for (int i = 1; i <= firstLength; i++) {
+        int cost = first.charAt(i - 1) == c ? 0 : 1;
+        int value = Math.min(Math.min(current[i - 1], previous[i]) + 1, previous[i - 1] + cost);
+        current[i] = value;
+        if (value < rowMin) {
+          rowMin = value;
+        }
+      }
+      if (rowMin > bound) {
+        return bound + 1;
+      }
+      int[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return Math.min(previous[firstLength], bound + 1);
+  }
+
+  private static final class Node {
+
+    private static final int[] NO_EDGES = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final String word;
+    private final String key;
+    // the distances to the children, which are distinct
+    private int[] edges = NO_EDGES;
+    private Node[] children = NO_CHILDREN;
+    private int count;
+    private int maxEdge;
+
+    Node(String word) {
+      this.word = word;
+      this.key = word.toLowerCase(Locale.ENGLISH);
+    }
+
+    Node getChild(int edge) {
+      for (int i = 0; i < count; i++) {
+        if (edges[i] == edge) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    void addChild(int edge, Node child) {
+      if (count == edges.length) {
+        int capacity = Math.max(4, count * 2);
+        edges = Arrays.copyOf(edges, capacity);
+        children = Arrays.copyOf(children, capacity);
+      }
+      edges[count] = edge;
+      children[count++] = child;
+      maxEdge = Math.max(maxEdge, edge);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents something that suggests what was meant by a input which isn't valid, like a mistyped
+ * subcommand or enum constant. A {@link ArgumentResolver} which is also a suggestion provider
+ * makes the {@link ArgumentOptional}s of the arguments it fails to resolve carry suggestions.
+ *
+ * @see SuggestionIndex
+ */
+@FunctionalInterface
+public interface SuggestionProvider {
+
+  /**
+   * Suggests what was meant by the specified input, the closest suggestions first.
+   *
+   * @param input the input which isn't valid
+   * @return suggestions, empty if nothing is close enough
+   */
+  @NotNull
+  List<String> suggest(@NotNull String input);
+}
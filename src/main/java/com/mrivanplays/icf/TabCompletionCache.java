@@ -0,0 +1,224 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a cache of tab completions, which can be enabled with {@link
+ * CommandManager#setTabCompletionCache(TabCompletionCache)}.
+ *
+ * <p>Completions are cached per command, label, argument position and the arguments before the
+ * one being completed, for all senders which are or aren't players and may use the same
+ * subcommands. While the completed argument gets longer, the cached completions are filtered
+ * instead of being computed again. Therefore, when the cache is enabled:
+ *
+ * <ul>
+ *   <li>completions get filtered to the ones starting with the argument being completed, case
+ *       insensitive;
+ *   <li>a {@link TabCompleter} should return the same completions for a longer argument or a subset
+ *       of them. Completions specific to the sender or depending on other permissions have to be
+ *       returned as {@link SenderCompletions}, which don't get cached. If the completions depend on
+ *       something else, {@link #invalidate(ICFCommand)} or {@link #invalidateAll()} should be
+ *       called when it changes.
+ * </ul>
+ */
+public final class TabCompletionCache {
+
+  private final Cache<Key, Entry> cache;
+
+  /**
+   * Creates a new tab completion cache.
+   *
+   * @param maximumSize the maximum amount of cached completions. When it is reached, the least
+   *     recently used ones get evicted.
+   * @param expireAfter the time after which cached completions expire
+   * @param unit the unit of the specified time
+   */
+  public TabCompletionCache(int maximumSize, long expireAfter, @NotNull TimeUnit unit) {
+    Preconditions.checkArgument(maximumSize > 0, "maximumSize must be positive");
+    Preconditions.checkNotNull(unit, "unit");
+    cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfter, unit)
+            .build();
+  }
+
+  /**
+   * Gets the completions of the specified arguments from the cache, or computes and caches them.
+   *
+   * @param node the command tree node the arguments reached
+   * @param sender the sender which invoked the completion
+   * @param label the label of which the completion was invoked
+   * @param args all the arguments, the last one being the one completed
+   * @param completer computes the completions, if they are not cached. They don't get cached if
+   *     they're {@link SenderCompletions}.
+   * @return completions starting with the last argument
+   */
+  @NotNull
+  public List<String> complete(
+      @NotNull CommandNode node,
+      @NotNull CommandSender sender,
+      @NotNull String label,
+      @NotNull String[] args,
+      @NotNull Supplier<List<String>> completer) {
+    String prefix = args.length == 0 ? "" : args[args.length - 1];
+    List<CommandNode> children = node.getChildren();
+    if (children.size() >= Long.SIZE) {
+      // too many subcommands to fingerprint the permissions of
+      return filter(completer.get(), prefix);
+    }
+    long fingerprint = sender instanceof Player ? 1 : 0;
+    for (int i = 0; i < children.size(); i++) {
+      if (children.get(i).canUse(sender)) {
+        fingerprint |= 1L << (i + 1);
+      }
+    }
+    Key key =
+        new Key(
+            node,
+            label,
+            args.length == 0 ? args : Arrays.copyOf(args, args.length - 1),
+            fingerprint);
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null && prefix.regionMatches(true, 0, entry.prefix, 0, entry.prefix.length())) {
+      return filter(entry.completions, prefix);
+    }
+    List<String> computed = completer.get();
+    if (computed instanceof SenderCompletions) {
+      return filter(computed, prefix);
+    }
+    List<String> completions = ImmutableList.copyOf(computed);
+    cache.put(key, new Entry(prefix, completions));
+    return filter(completions, prefix);
+  }
+
+  /**
+   * Removes the cached completions of the specified command and of the subcommands it has.
+   *
+   * @param command the command of which to remove the completions
+   */
+  public void invalidate(@NotNull ICFCommand command) {
+    Preconditions.checkNotNull(command, "command");
+    Set<ICFCommand> commands = Collections.newSetFromMap(new IdentityHashMap<>());
+    addWithSubcommands(command, commands);
+    cache.asMap().keySet().removeIf(key -> commands.contains(key.node.getCommand()));
+  }
+
+  private static void addWithSubcommands(ICFCommand command, Set<ICFCommand> commands) {
+    // a command can't be a subcommand of itself, the tree compilation rejects that
+    if (commands.add(command) && command instanceof BaseCommand) {
+      for (BaseCommand subcommand : ((BaseCommand) command).getSubcommands()) {
+        addWithSubcommands(subcommand, commands);
+      }
+    }
+  }
+
+  /** Removes all the cached completions. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private static List<String> filter(List<String> completions, String prefix) {
+    if (prefix.isEmpty()) {
+      return completions;
+    }
+    List<String> matches = null;
+    for (int i = 0; i < completions.size(); i++) {
+      String completion = completions.get(i);
+      boolean match = completion.regionMatches(true, 0, prefix, 0, prefix.length());
+      if (matches == null && !match) {
+        // found the first one to drop, the ones before it are kept
+        matches = new ArrayList<>(completions.subList(0, i));
+      } else if (matches != null && match) {
+        matches.add(completion);
+      }
+    }
+    return matches == null ? completions : Collections.unmodifiableList(matches);
+  }
+
+  private static final class Key {
+
+    private final CommandNode node;
+    private final String label;
+    private final String[] preceding;
+    private final long fingerprint;
+    private final int hash;
+
+    Key(CommandNode node, String label, String[] preceding, long fingerprint) {
+      this.node = node;
+      this.label = label;
+      this.preceding = preceding;
+      this.fingerprint = fingerprint;
+      int hash = System.identityHashCode(node);
+      hash = 31 * hash + label.hashCode();
+      hash = 31 * hash + Arrays.hashCode(preceding);
+      hash = 31 * hash + Long.hashCode(fingerprint);
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return node == other.node
+          && fingerprint == other.fingerprint
+          && label.equals(other.label)
+          && Arrays.equals(preceding, other.preceding);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final class Entry {
+
+    private final String prefix;
+    private final List<String> completions;
+
+    Entry(String prefix, List<String> completions) {
+      this.prefix = prefix;
+      this.completions = completions;
+    }
+  }
+}
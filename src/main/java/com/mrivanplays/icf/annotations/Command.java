@@ -0,0 +1,68 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class as a command, whose handler methods are annotated with {@link Default} and {@link
+ * Subcommand}. Register a instance of it with {@link
+ * com.mrivanplays.icf.CommandManager#registerAnnotatedCommand(Object)}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Command {
+
+  /**
+   * The name of the command, followed by its aliases.
+   *
+   * @return name and aliases
+   */
+  String[] value();
+
+  /**
+   * The permission of the command, empty for none.
+   *
+   * @return permission
+   */
+  String permission() default "";
+
+  /**
+   * Whenever the command is player only.
+   *
+   * @return player only
+   */
+  boolean playerOnly() default false;
+
+  /**
+   * The message sent when the command is invoked with no subcommand and there is no {@link
+   * Default} handler. Supports <code>&amp;</code> color codes. If empty, a message listing the
+   * subcommands is generated.
+   *
+   * @return usage message
+   */
+  String usage() default "";
+}
@@ -0,0 +1,68 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how often players can execute a command, see {@link com.mrivanplays.icf.RateLimiter}. On
+ * a {@link Default} or {@link Subcommand} method it limits that handler, on a {@link Command} class
+ * it limits, separately, each handler which has no limit of its own. With a single permit, it is
+ * a cooldown.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RateLimit {
+
+  /**
+   * The period in which the permits refill.
+   *
+   * @return period
+   */
+  long value();
+
+  /**
+   * The unit of the period.
+   *
+   * @return unit
+   */
+  TimeUnit unit() default TimeUnit.SECONDS;
+
+  /**
+   * The amount of executions allowed per period.
+   *
+   * @return permits
+   */
+  int permits() default 1;
+
+  /**
+   * The permission which lets players bypass the limit, empty for none.
+   *
+   * @return bypass permission
+   */
+  String bypassPermission() default "";
+}
@@ -0,0 +1,71 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method as the handler of a subcommand of the {@link Command} its class is.
+ *
+ * <p>The first parameter of the method must be a {@link org.bukkit.command.CommandSender}, or a
+ * {@link org.bukkit.entity.Player} which makes the subcommand player only. The other parameters
+ * get resolved from the arguments, in order, with the argument resolver registered for their type.
+ * A {@link com.mrivanplays.icf.CommandArguments} parameter may come last to get the rest of the
+ * arguments.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Subcommand {
+
+  /**
+   * The name of the subcommand, followed by its aliases.
+   *
+   * @return name and aliases
+   */
+  String[] value();
+
+  /**
+   * The permission of the subcommand, empty for none.
+   *
+   * @return permission
+   */
+  String permission() default "";
+
+  /**
+   * Whenever the subcommand is player only.
+   *
+   * @return player only
+   */
+  boolean playerOnly() default false;
+
+  /**
+   * The message sent when a argument is missing or can't be resolved. Supports <code>&amp;</code>
+   * color codes. If empty, a message is generated from the parameters.
+   *
+   * @return usage message
+   */
+  String usage() default "";
+}
@@ -0,0 +1,134 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf.external;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.mrivanplays.icf.AsyncTabCompleter;
+import com.mrivanplays.icf.CommandArguments;
+import com.mrivanplays.icf.CompletionIndex;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+/** Keeps track of the {@link AsyncTabCompleter} requests of every sender of a command. */
+final class AsyncCompletions {
+
+  private final Cache<Object, State> states =
+      CacheBuilder.newBuilder().expireAfterAccess(5, TimeUnit.MINUTES).build();
+
+  /**
+   * Requests completions of the specified arguments and returns the last completed ones, which are
+   * applicable to them, without waiting.
+   */
+  Iterable<String> request(
+      AsyncTabCompleter completer,
+      CommandSender sender,
+      String label,
+      String[] args,
+      CommandArguments arguments,
+      Executor executor) {
+    Object key = sender instanceof Player ? ((Player) sender).getUniqueId() : sender;
+    State state = states.asMap().computeIfAbsent(key, k -> new State());
+    return state.request(completer, sender, label, args, arguments, executor);
+  }
+
+  private static final class State {
+
+    private long sequence;
+    private CompletableFuture<Iterable<String>> inFlight;
+    private String[] inFlightArgs;
+
+    private long completedSequence;
+    private String[] completedArgs;
+    private Iterable<String> completed;
+
+    synchronized Iterable<String> request(
+        AsyncTabCompleter completer,
+        CommandSender sender,
+        String label,
+        String[] args,
+        CommandArguments arguments,
+        Executor executor) {
+      if (inFlight == null || !Arrays.equals(inFlightArgs, args)) {
+        if (inFlight != null) {
+          // only completes it, the work computing it may keep running
+          inFlight.cancel(false);
+        }
+        long requestSequence = ++sequence;
+        String[] requestArgs = args.clone();
+        CompletableFuture<Iterable<String>> future =
+            completer.tabCompleteAsync(sender, label, arguments, executor);
+        inFlight = future;
+        inFlightArgs = requestArgs;
+        // may run right away if the future is already completed
+        future.whenComplete(
+            (result, error) -> complete(future, requestSequence, requestArgs, result, error));
+      }
+      return serve(args);
+    }
+
+    private synchronized void complete(
+        CompletableFuture<Iterable<String>> future,
+        long requestSequence,
+        String[] requestArgs,
+        Iterable<String> result,
+        Throwable error) {
+      if (future == inFlight) {
+        inFlight = null;
+        inFlightArgs = null;
+      }
+      // a superseded request may complete after a newer one did
+      if (error == null && requestSequence > completedSequence) {
+        completedSequence = requestSequence;
+        completedArgs = requestArgs;
+        completed = result;
+      }
+    }
+
+    private Iterable<String> serve(String[] args) {
+      if (completed == null || completedArgs.length != args.length) {
+        return null;
+      }
+      int last = args.length - 1;
+      for (int i = 0; i < last; i++) {
+        if (!completedArgs[i].equals(args[i])) {
+          return null;
+        }
+      }
+      if (last < 0 || completedArgs[last].equals(args[last])) {
+        return completed;
+      }
+      if (completed instanceof CompletionIndex) {
+        // gets looked up with the current argument anyway
+        return completed;
+      }
+      // completed for what was typed before, so narrow it down to what is typed now
+      String prefix = args[last];
+      return Iterables.filter(
+          completed, match -> match.regionMatches(true, 0, prefix, 0, prefix.length()));
+    }
+  }
+}
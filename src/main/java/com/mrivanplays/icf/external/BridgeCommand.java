@@ -21,13 +21,27 @@
 package com.mrivanplays.icf.external;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.mrivanplays.icf.AsyncTabCompleter;
 import com.mrivanplays.icf.CommandArguments;
 import com.mrivanplays.icf.CommandManager;
+import com.mrivanplays.icf.CommandMetrics;
+import com.mrivanplays.icf.CommandNode;
+import com.mrivanplays.icf.CommandStats;
+import com.mrivanplays.icf.CommandWatchdog;
+import com.mrivanplays.icf.CompletionIndex;
 import com.mrivanplays.icf.ICFCommand;
+import com.mrivanplays.icf.RateLimiter;
+import com.mrivanplays.icf.SenderCompletions;
+import com.mrivanplays.icf.TabCompletionCache;
 import com.mrivanplays.icf.TabCompleter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -36,49 +50,255 @@ import org.jetbrains.annotations.NotNull;
 public final class BridgeCommand extends Command {
 
   private final ICFCommand icfCommand;
+  private final String[] labels;
+  private final CommandNode root;
   private final CommandManager commandManager;
+  private AsyncCompletions asyncCompletions;
 
   protected BridgeCommand(ICFCommand icfCommand, CommandManager commandManager, String... aliases) {
     super(aliases[0]);
     setAliases(Arrays.asList(Arrays.copyOfRange(aliases, 1, aliases.length)));
     this.icfCommand = icfCommand;
+    this.labels = aliases;
+    this.root = CommandNode.compile(icfCommand);
     this.commandManager = commandManager;
   }
 
+  ICFCommand getICFCommand() {
+    return icfCommand;
+  }
+
+  /** Returns the name and the aliases this command was registered with. */
+  String[] getLabels() {
+    return labels;
+  }
+
   @Override
   public boolean execute(
       @NotNull CommandSender sender, @NotNull String commandLabel, @NotNull String[] args) {
-    if (icfCommand.isPlayerOnly()) {
-      if (!(sender instanceof Player)) {
-        sender.sendMessage(commandManager.getNoConsoleMessage());
+    CommandMetrics metrics = commandManager.getMetrics();
+    CommandStats stats = metrics != null ? metrics.getStats(getName()) : null;
+    CommandArguments arguments = new CommandArguments(args, stats);
+    CommandNode node = root;
+    while (true) {
+      ICFCommand command = node.getCommand();
+      if (command.isPlayerOnly()) {
+        if (!(sender instanceof Player)) {
+          if (stats != null) {
+            stats.recordConsoleRejection();
+          }
+          sender.sendMessage(commandManager.getNoConsoleTemplate().render(commandLabel));
+          return true;
+        }
+      }
+      if (!command.hasPermission(sender)) {
+        if (stats != null) {
+          stats.recordPermissionRejection();
+        }
+        sender.sendMessage(
+            commandManager
+                .getNoPermissionTemplate()
+                .render(commandLabel, command.getPermission()));
         return true;
       }
+      CommandNode child = node.getChild(arguments.peek());
+      if (child == null) {
+        break;
+      }
+      arguments.nextUnsafe();
+      node = child;
+    }
+    ICFCommand command = node.getCommand();
+    RateLimiter rateLimiter = command.getRateLimiter();
+    if (rateLimiter != null && sender instanceof Player) {
+      long wait = rateLimiter.tryAcquire(((Player) sender).getUniqueId());
+      if (wait > 0) {
+        String bypassPermission = rateLimiter.getBypassPermission();
+        if (bypassPermission == null || !commandManager.hasPermission(sender, bypassPermission)) {
+          if (stats != null) {
+            stats.recordRateLimitRejection();
+          }
+          sender.sendMessage(
+              commandManager.getRateLimitedTemplate().render(formatWait(wait), commandLabel));
+          return true;
+        }
+      }
     }
-    if (!icfCommand.hasPermission(sender)) {
-      sender.sendMessage(commandManager.getNoPermissionMessage());
+    if (!command.isAsync()) {
+      execute(command, sender, commandLabel, args, arguments, stats);
       return true;
     }
-    icfCommand.execute(sender, commandLabel, new CommandArguments(args));
+    try {
+      commandManager
+          .getCommandExecutor()
+          .execute(
+              () -> {
+                try {
+                  execute(command, sender, commandLabel, args, arguments, stats);
+                } catch (Throwable error) {
+                  commandManager
+                      .getPlugin()
+                      .getLogger()
+                      .log(
+                          Level.SEVERE,
+                          "Unhandled exception executing command '" + commandLabel + "' async",
+                          error);
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      sender.sendMessage(commandManager.getBusyTemplate().render(commandLabel));
+    }
     return true;
   }
 
+  private void execute(
+      ICFCommand command,
+      CommandSender sender,
+      String commandLabel,
+      String[] args,
+      CommandArguments arguments,
+      CommandStats stats) {
+    CommandWatchdog watchdog = commandManager.getWatchdog();
+    if (stats == null && watchdog == null) {
+      command.execute(sender, commandLabel, arguments);
+      return;
+    }
+    CommandWatchdog.Watch watch =
+        watchdog != null ? watchdog.watch("execute", commandLabel, args) : null;
+    long start = System.nanoTime();
+    try {
+      command.execute(sender, commandLabel, arguments);
+    } finally {
+      if (stats != null) {
+        stats.recordExecute(System.nanoTime() - start);
+      }
+      if (watch != null) {
+        watch.finish();
+      }
+    }
+  }
+
+  // rounded up, so a player is never told to wait 0 seconds
   @NotNull
+  private static String formatWait(long nanos) {
+    long seconds = (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    return seconds < 60 ? seconds + "s" : (seconds / 60) + "m " + (seconds % 60) + "s";
+  }
+
   @Override
   public List<String> tabComplete(
       @NotNull CommandSender sender, @NotNull String label, @NotNull String[] args) {
-    if (!(icfCommand instanceof TabCompleter)) {
+    CommandMetrics metrics = commandManager.getMetrics();
+    CommandWatchdog watchdog = commandManager.getWatchdog();
+    if (metrics == null && watchdog == null) {
+      return completeTree(sender, label, args);
+    }
+    CommandWatchdog.Watch watch =
+        watchdog != null ? watchdog.watch("tab complete", label, args) : null;
+    long start = System.nanoTime();
+    try {
+      return completeTree(sender, label, args);
+    } finally {
+      if (metrics != null) {
+        metrics.getStats(getName()).recordTabComplete(System.nanoTime() - start);
+      }
+      if (watch != null) {
+        watch.finish();
+      }
+    }
+  }
+
+  private List<String> completeTree(CommandSender sender, String label, String[] args) {
+    if (!(icfCommand instanceof TabCompleter)
+        && !(icfCommand instanceof AsyncTabCompleter)
+        && !root.hasChildren()) {
       return super.tabComplete(sender, label, args);
     }
-    if (icfCommand.isPlayerOnly()) {
-      if (!(sender instanceof Player)) {
+    CommandArguments arguments = new CommandArguments(args);
+    CommandNode node = root;
+    while (true) {
+      if (!node.canUse(sender)) {
         return Collections.emptyList();
       }
+      // the last argument is the one being completed, so it can't be a subcommand yet
+      CommandNode child = arguments.size() > 1 ? node.getChild(arguments.peek()) : null;
+      if (child == null) {
+        break;
+      }
+      arguments.nextUnsafe();
+      node = child;
+    }
+    TabCompletionCache cache = commandManager.getTabCompletionCache();
+    int maxCompletions = commandManager.getMaxTabCompletions();
+    if (cache == null || node.getCommand() instanceof AsyncTabCompleter) {
+      // async completions change while they complete, so they can't be cached
+      return complete(sender, label, args, node, arguments, maxCompletions);
     }
-    if (!icfCommand.hasPermission(sender)) {
-      return Collections.emptyList();
+    CommandNode reached = node;
+    List<String> completions =
+        cache.complete(
+            node,
+            sender,
+            label,
+            args,
+            () -> complete(sender, label, args, reached, arguments, Integer.MAX_VALUE));
+    return completions.size() > maxCompletions
+        ? completions.subList(0, maxCompletions)
+        : completions;
+  }
+
+  private List<String> complete(
+      CommandSender sender,
+      String label,
+      String[] args,
+      CommandNode node,
+      CommandArguments arguments,
+      int maxCompletions) {
+    List<String> literals = null;
+    if (arguments.size() == 1 && node.hasChildren()) {
+      literals = new ArrayList<>();
+      node.completeLiterals(sender, arguments.peek(), literals);
+    }
+    ICFCommand command = node.getCommand();
+    Iterable<String> matches;
+    if (command instanceof AsyncTabCompleter) {
+      matches =
+          getAsyncCompletions()
+              .request(
+                  (AsyncTabCompleter) command,
+                  sender,
+                  label,
+                  args,
+                  arguments,
+                  commandManager.getTabCompleteExecutor());
+    } else if (command instanceof TabCompleter) {
+      matches = ((TabCompleter) command).tabComplete(sender, label, arguments);
+    } else {
+      matches = null;
+    }
+    boolean senderCompletions = matches instanceof SenderCompletions;
+    if (matches instanceof CompletionIndex) {
+      String prefix = args.length == 0 ? "" : args[args.length - 1];
+      matches = ((CompletionIndex) matches).complete(prefix, maxCompletions);
+    } else if (matches != null && maxCompletions != Integer.MAX_VALUE) {
+      matches = Iterables.limit(matches, maxCompletions);
+    }
+    List<String> completions;
+    if (literals == null) {
+      completions = matches == null ? Collections.emptyList() : ImmutableList.copyOf(matches);
+    } else if (matches != null) {
+      completions = ImmutableList.<String>builder().addAll(literals).addAll(matches).build();
+    } else {
+      completions = literals;
+    }
+    // still marked, so the tab completion cache doesn't cache them
+    return senderCompletions ? SenderCompletions.of(completions) : completions;
+  }
+
+  private synchronized AsyncCompletions getAsyncCompletions() {
+    if (asyncCompletions == null) {
+      asyncCompletions = new AsyncCompletions();
     }
-    Iterable<String> matches =
-        ((TabCompleter) icfCommand).tabComplete(sender, label, new CommandArguments(args));
-    return matches == null ? Collections.emptyList() : ImmutableList.copyOf(matches);
+    return asyncCompletions;
   }
 }
@@ -22,44 +22,321 @@ package com.mrivanplays.icf.external;
 
 import com.mrivanplays.icf.CommandManager;
 import com.mrivanplays.icf.ICFCommand;
+import com.mrivanplays.icf.SuggestionIndex;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
 import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.Command;
 import org.bukkit.command.CommandMap;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
 public final class BukkitCommandMapBridge {
 
+  // resolved once, the first time commands get registered
+  private static volatile MethodHandle commandMapGetter;
+  private static volatile MethodHandle syncCommands;
+  private static volatile MethodHandle knownCommandsGetter;
+
   private CommandMap commandMap;
   private final Plugin plugin;
   private final CommandManager commandManager;
   private final List<Map.Entry<String, String>> commands;
+  // guarded by this
+  private final List<BridgeCommand> registered = new ArrayList<>();
+  private volatile CommandSendSnapshot commandSendSnapshot = CommandSendSnapshot.EMPTY;
+  // built when first needed after the commands change
+  private volatile SuggestionIndex labelSuggestions;
+  // guarded by this
+  private boolean resyncScheduled;
 
   public BukkitCommandMapBridge(Plugin plugin, CommandManager commandManager) {
-    try {
-      Field field = Bukkit.getServer().getClass().getDeclaredField("commandMap");
-      field.setAccessible(true);
-      commandMap = (CommandMap) field.get(Bukkit.getServer());
-    } catch (IllegalAccessException | NoSuchFieldException e) {
-      e.printStackTrace();
-    }
     this.plugin = plugin;
     this.commandManager = commandManager;
-    commands = new ArrayList<>();
+    commands = new CopyOnWriteArrayList<>();
   }
 
   public void registerCommand(ICFCommand command, String... aliases) {
-    for (String alias : aliases) {
-      commands.add(new AbstractMap.SimpleEntry<>(alias, command.getPermission()));
+    registerCommands(Collections.singletonList(command), Collections.singletonList(aliases));
+  }
+
+  /**
+   * Registers the specified commands at once, each with the aliases at the same index. The
+   * commands sent to players get updated once, after all of them are registered.
+   *
+   * @param commands the commands
+   * @param aliases the aliases of each command
+   */
+  public synchronized void registerCommands(
+      List<? extends ICFCommand> commands, List<String[]> aliases) {
+    CommandMap commandMap = getCommandMap();
+    List<Map.Entry<String, String>> entries = new ArrayList<>();
+    List<BridgeCommand> bridges = new ArrayList<>(commands.size());
+    for (int i = 0; i < commands.size(); i++) {
+      ICFCommand command = commands.get(i);
+      for (String alias : aliases.get(i)) {
+        entries.add(new AbstractMap.SimpleImmutableEntry<>(alias, command.getPermission()));
+      }
+      bridges.add(new BridgeCommand(command, commandManager, aliases.get(i)));
+    }
+    this.commands.addAll(entries);
+    registered.addAll(bridges);
+    commandSendSnapshot = new CommandSendSnapshot(plugin.getName(), this.commands);
+    labelSuggestions = null;
+    commandMap.registerAll(plugin.getName(), new ArrayList<Command>(bridges));
+    resyncCommands();
+  }
+
+  /**
+   * Unregisters the specified commands at once, removing every label they were registered with,
+   * including the ones prefixed with the plugin name, from the command map of the server. The
+   * commands sent to players get updated once, after all of them are unregistered.
+   *
+   * @param commands the commands
+   * @return the removed commands, mapped to the labels they were registered with
+   */
+  public synchronized Map<ICFCommand, List<String>> unregisterCommands(
+      Collection<? extends ICFCommand> commands) {
+    Set<ICFCommand> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+    toRemove.addAll(commands);
+    List<BridgeCommand> removed = new ArrayList<>();
+    for (Iterator<BridgeCommand> iterator = registered.iterator(); iterator.hasNext(); ) {
+      BridgeCommand bridge = iterator.next();
+      if (toRemove.contains(bridge.getICFCommand())) {
+        removed.add(bridge);
+        iterator.remove();
+      }
     }
-    commandMap.register(
-        aliases[0], plugin.getName(), new BridgeCommand(command, commandManager, aliases));
+    return unregister(removed);
+  }
+
+  /**
+   * Unregisters all of the commands registered through this bridge.
+   *
+   * @return the removed commands, mapped to the labels they were registered with
+   */
+  public synchronized Map<ICFCommand, List<String>> unregisterAll() {
+    List<BridgeCommand> removed = new ArrayList<>(registered);
+    registered.clear();
+    return unregister(removed);
+  }
+
+  private Map<ICFCommand, List<String>> unregister(List<BridgeCommand> removed) {
+    if (removed.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    CommandMap commandMap = getCommandMap();
+    Set<Command> removedCommands = Collections.newSetFromMap(new IdentityHashMap<>());
+    removedCommands.addAll(removed);
+    // the command map keeps every command under its label, its namespaced label and its aliases,
+    // and the ones which clashed with other commands under the namespaced labels only
+    getKnownCommands(commandMap).values().removeIf(removedCommands::contains);
+
+    Map<Map.Entry<String, String>, Integer> entries = new HashMap<>();
+    // the same command can be registered more times, under different labels
+    Map<ICFCommand, List<String>> labels = new IdentityHashMap<>();
+    for (BridgeCommand bridge : removed) {
+      bridge.unregister(commandMap);
+      String permission = bridge.getICFCommand().getPermission();
+      List<String> commandLabels =
+          labels.computeIfAbsent(bridge.getICFCommand(), command -> new ArrayList<>());
+      for (String label : bridge.getLabels()) {
+        entries.merge(new AbstractMap.SimpleImmutableEntry<>(label, permission), 1, Integer::sum);
+        commandLabels.add(label);
+      }
+    }
+    // the same label can be registered by more commands, so only as many entries are removed
+    commands.removeIf(
+        entry -> {
+          Integer count = entries.get(entry);
+          if (count == null || count == 0) {
+            return false;
+          }
+          entries.put(entry, count - 1);
+          return true;
+        });
+    commandSendSnapshot = new CommandSendSnapshot(plugin.getName(), commands);
+    labelSuggestions = null;
+    resyncCommands();
+    return labels;
+  }
+
+  /**
+   * Suggests the closest names and aliases of the registered commands to the specified label.
+   *
+   * @param label the label which isn't a registered command
+   * @return suggestions, the closest first
+   */
+  public List<String> suggestLabels(String label) {
+    SuggestionIndex suggestions = labelSuggestions;
+    if (suggestions == null) {
+      // built while holding the lock of the registration, so it can't miss a change
+      synchronized (this) {
+        suggestions = labelSuggestions;
+        if (suggestions == null) {
+          Set<String> labels = new LinkedHashSet<>();
+          for (Map.Entry<String, String> command : commands) {
+            labels.add(command.getKey());
+          }
+          suggestions = SuggestionIndex.of(labels);
+          labelSuggestions = suggestions;
+        }
+      }
+    }
+    return suggestions.suggest(label);
   }
 
   public List<Map.Entry<String, String>> getCommands() {
-    return commands;
+    return Collections.unmodifiableList(commands);
+  }
+
+  CommandManager getCommandManager() {
+    return commandManager;
+  }
+
+  CommandSendSnapshot getCommandSendSnapshot() {
+    return commandSendSnapshot;
+  }
+
+  private CommandMap getCommandMap() {
+    if (commandMap == null) {
+      Server server = Bukkit.getServer();
+      resolveHandles(server);
+      try {
+        commandMap = (CommandMap) commandMapGetter.invokeExact(server);
+      } catch (Throwable error) {
+        throw new IllegalStateException("Couldn't get the command map of the server", error);
+      }
+    }
+    return commandMap;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Command> getKnownCommands(CommandMap commandMap) {
+    if (knownCommandsGetter == null) {
+      synchronized (BukkitCommandMapBridge.class) {
+        if (knownCommandsGetter == null) {
+          knownCommandsGetter = resolveKnownCommands(commandMap.getClass());
+        }
+      }
+    }
+    try {
+      return (Map<String, Command>) knownCommandsGetter.invokeExact(commandMap);
+    } catch (Throwable error) {
+      throw new IllegalStateException("Couldn't get the known commands of the server", error);
+    }
+  }
+
+  private static MethodHandle resolveKnownCommands(Class<?> commandMapClass) {
+    MethodType type = MethodType.methodType(Map.class, CommandMap.class);
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    for (Class<?> declaring = commandMapClass;
+        declaring != null;
+        declaring = declaring.getSuperclass()) {
+      try {
+        Field field = declaring.getDeclaredField("knownCommands");
+        field.setAccessible(true);
+        return lookup.unreflectGetter(field).asType(type);
+      } catch (NoSuchFieldException ignored) {
+        // declared by a superclass
+      } catch (ReflectiveOperationException | RuntimeException error) {
+        throw new IllegalStateException("Couldn't find the known commands of the server", error);
+      }
+    }
+    throw new IllegalStateException("Couldn't find the known commands of the server");
+  }
+
+  // the commands get sent once all the plugins are enabled while the server starts, so they only
+  // need to be synced with players online, once for all the changes made during the same tick
+  private void resyncCommands() {
+    if (Bukkit.getOnlinePlayers().isEmpty() || resyncScheduled) {
+      return;
+    }
+    if (!plugin.isEnabled()) {
+      // tasks can't be scheduled while the plugin gets disabled
+      syncCommands();
+      return;
+    }
+    resyncScheduled = true;
+    Bukkit.getScheduler()
+        .runTask(
+            plugin,
+            () -> {
+              synchronized (this) {
+                resyncScheduled = false;
+              }
+              syncCommands();
+            });
+  }
+
+  // syncs the brigadier tree of the server, which also sends the commands to the online players
+  private void syncCommands() {
+    if (syncCommands != null) {
+      try {
+        syncCommands.invokeExact(Bukkit.getServer());
+      } catch (Throwable error) {
+        // the commands are registered already, only the ones sent to the players are outdated
+        plugin.getLogger().log(Level.WARNING, "Couldn't sync the commands of the server", error);
+      }
+      return;
+    }
+    for (Player player : Bukkit.getOnlinePlayers()) {
+      player.updateCommands();
+    }
+  }
+
+  private static void resolveHandles(Server server) {
+    if (commandMapGetter != null) {
+      return;
+    }
+    synchronized (BukkitCommandMapBridge.class) {
+      if (commandMapGetter != null) {
+        return;
+      }
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      Class<?> serverClass = server.getClass();
+      MethodHandle getter;
+      try {
+        Field field = serverClass.getDeclaredField("commandMap");
+        field.setAccessible(true);
+        getter = lookup.unreflectGetter(field);
+      } catch (ReflectiveOperationException | RuntimeException error) {
+        throw new IllegalStateException("Couldn't find the command map of the server", error);
+      }
+      // made by CraftBukkit 1.13+, to update the commands known to the clients, not public on all
+      // of its versions
+      syncCommands = null;
+      for (Class<?> type = serverClass; type != null; type = type.getSuperclass()) {
+        try {
+          Method method = type.getDeclaredMethod("syncCommands");
+          method.setAccessible(true);
+          syncCommands =
+              lookup.unreflect(method).asType(MethodType.methodType(void.class, Server.class));
+          break;
+        } catch (NoSuchMethodException ignored) {
+          // declared by a superclass
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+          break;
+        }
+      }
+      commandMapGetter = getter.asType(MethodType.methodType(CommandMap.class, Server.class));
+    }
   }
 }
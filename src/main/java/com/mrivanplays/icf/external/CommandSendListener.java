@@ -20,8 +20,11 @@
 **/
 package com.mrivanplays.icf.external;
 
+import com.mrivanplays.icf.CommandManager;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -33,25 +36,53 @@ import org.bukkit.event.player.PlayerCommandSendEvent;
  */
 public class CommandSendListener implements Listener {
 
-  private final String pluginName;
-  private final List<Map.Entry<String, String>> commandMap;
+  private final Supplier<CommandSendSnapshot> snapshot;
+  private final CommandManager commandManager;
 
+  /**
+   * Creates a new listener, which follows the commands registered by the specified bridge.
+   *
+   * @param mapBridge the bridge the commands are registered by
+   */
+  public CommandSendListener(BukkitCommandMapBridge mapBridge) {
+    this.snapshot = mapBridge::getCommandSendSnapshot;
+    this.commandManager = mapBridge.getCommandManager();
+  }
+
+  /**
+   * @deprecated use {@link #CommandSendListener(BukkitCommandMapBridge)}, this recompiles the
+   *     specified commands every time their count changed
+   */
+  @Deprecated
   public CommandSendListener(String pluginName, List<Map.Entry<String, String>> commandMap) {
-    this.pluginName = pluginName;
-    this.commandMap = commandMap;
+    this.snapshot = new ListSnapshot(pluginName, commandMap);
+    this.commandManager = null;
   }
 
   @EventHandler
   public void on(PlayerCommandSendEvent event) {
-    Player player = event.getPlayer();
-    for (Map.Entry<String, String> entry : commandMap) {
-      if (entry.getValue() == null) {
-        continue;
-      }
-      if (!player.hasPermission(entry.getValue())) {
-        event.getCommands().remove(entry.getKey());
-        event.getCommands().remove(pluginName + ":" + entry.getKey());
+    snapshot.get().removeDenied(commandManager, event.getPlayer(), event.getCommands());
+  }
+
+  private static final class ListSnapshot implements Supplier<CommandSendSnapshot> {
+
+    private final String pluginName;
+    private final List<Map.Entry<String, String>> commandMap;
+    private int compiledSize = -1;
+    private CommandSendSnapshot compiled;
+
+    ListSnapshot(String pluginName, List<Map.Entry<String, String>> commandMap) {
+      this.pluginName = pluginName;
+      this.commandMap = commandMap;
+    }
+
+    @Override
+    public synchronized CommandSendSnapshot get() {
+      if (compiledSize != commandMap.size()) {
+        compiled = new CommandSendSnapshot(pluginName, new ArrayList<>(commandMap));
+        compiledSize = commandMap.size();
       }
+      return compiled;
     }
   }
 }
@@ -0,0 +1,112 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf.external;
+
+import com.mrivanplays.icf.CommandManager;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.bukkit.entity.Player;
+
+/**
+ * Immutable snapshot of the registered commands, grouped by their permission, with the namespaced
+ * labels computed ahead.
+ */
+final class CommandSendSnapshot {
+
+  static final CommandSendSnapshot EMPTY = new CommandSendSnapshot("", Collections.emptyList());
+
+  private final String[] permissions;
+  // label -> indexes of the permissions required by the commands registered with that label
+  private final Map<String, int[]> labels;
+
+  CommandSendSnapshot(String pluginName, Collection<Map.Entry<String, String>> commands) {
+    Map<String, Integer> permissionIndexes = new LinkedHashMap<>();
+    Map<String, int[]> labels = new HashMap<>();
+    for (Map.Entry<String, String> command : commands) {
+      String permission = command.getValue();
+      if (permission == null || permission.isEmpty()) {
+        continue;
+      }
+      Integer index = permissionIndexes.get(permission);
+      if (index == null) {
+        index = permissionIndexes.size();
+        permissionIndexes.put(permission, index);
+      }
+      addLabel(labels, command.getKey(), index);
+      addLabel(labels, pluginName + ":" + command.getKey(), index);
+    }
+    this.permissions = permissionIndexes.keySet().toArray(new String[0]);
+    this.labels = labels;
+  }
+
+  private static void addLabel(Map<String, int[]> labels, String label, int permission) {
+    int[] permissions = labels.get(label);
+    if (permissions == null) {
+      labels.put(label, new int[] {permission});
+    } else if (Arrays.stream(permissions).noneMatch(index -> index == permission)) {
+      permissions = Arrays.copyOf(permissions, permissions.length + 1);
+      permissions[permissions.length - 1] = permission;
+      labels.put(label, permissions);
+    }
+  }
+
+  /**
+   * Removes the labels of the commands the specified player has no permission for from the
+   * specified commands. Every distinct permission is checked once, through the permission cache of
+   * the specified manager if there is one.
+   */
+  void removeDenied(CommandManager commandManager, Player player, Collection<String> commands) {
+    boolean[] denied = null;
+    for (int i = 0; i < permissions.length; i++) {
+      boolean permitted =
+          commandManager != null
+              ? commandManager.hasPermission(player, permissions[i])
+              : player.hasPermission(permissions[i]);
+      if (!permitted) {
+        if (denied == null) {
+          denied = new boolean[permissions.length];
+        }
+        denied[i] = true;
+      }
+    }
+    if (denied == null) {
+      return;
+    }
+    boolean[] deniedPermissions = denied;
+    commands.removeIf(
+        label -> {
+          int[] required = labels.get(label);
+          if (required == null) {
+            return false;
+          }
+          for (int permission : required) {
+            if (deniedPermissions[permission]) {
+              return true;
+            }
+          }
+          return false;
+        });
+  }
+}
@@ -0,0 +1,83 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+
+public class CommandArgumentsAsyncTest {
+
+  private final CommandStats stats = new CommandStats("test");
+
+  @Test
+  public void recordsAArgumentNotTyped() {
+    assertFalse(next(input -> CompletableFuture.completedFuture("value")).isPresent());
+
+    assertEquals(1, stats.getFailures(FailReason.ARGUMENT_NOT_TYPED));
+  }
+
+  @Test
+  public void recordsAResolverThrowing() {
+    assertFalse(
+        next(
+                input -> {
+                  throw new IllegalStateException("no lookups");
+                },
+                "arg")
+            .isPresent());
+
+    assertEquals(1, stats.getFailures(FailReason.ARGUMENT_PARSED_NOT_TYPE));
+  }
+
+  @Test
+  public void recordsAFutureCompletingExceptionally() {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    CompletableFuture<ArgumentOptional<String>> resolved =
+        new CommandArguments(new String[] {"arg"}, stats).nextAsync(input -> future);
+    assertEquals(0, stats.getFailures());
+
+    future.completeExceptionally(new IllegalStateException("the web is down"));
+    assertFalse(resolved.join().isPresent());
+    assertEquals(1, stats.getFailures(FailReason.ARGUMENT_PARSED_NOT_TYPE));
+  }
+
+  @Test
+  public void recordsAFutureCompletingWithNull() {
+    assertFalse(next(input -> CompletableFuture.completedFuture(null), "arg").isPresent());
+
+    assertEquals(1, stats.getFailures(FailReason.ARGUMENT_PARSED_NULL));
+  }
+
+  @Test
+  public void doesNotRecordAResolvedArgument() {
+    assertTrue(next(CompletableFuture::completedFuture, "arg").isPresent());
+
+    assertEquals(0, stats.getFailures());
+  }
+
+  private ArgumentOptional<String> next(AsyncArgumentResolver<String> resolver, String... args) {
+    return new CommandArguments(args, stats).nextAsync(resolver).join();
+  }
+}
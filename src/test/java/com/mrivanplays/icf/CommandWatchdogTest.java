@@ -0,0 +1,92 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommandWatchdogTest {
+
+  private final List<LogRecord> records = new ArrayList<>();
+  private final Logger logger = Logger.getAnonymousLogger();
+  private CommandWatchdog watchdog;
+
+  @Before
+  public void setUp() {
+    logger.setUseParentHandlers(false);
+    logger.addHandler(
+        new Handler() {
+          @Override
+          public void publish(LogRecord record) {
+            records.add(record);
+          }
+
+          @Override
+          public void flush() {}
+
+          @Override
+          public void close() {}
+        });
+    watchdog = new CommandWatchdog(20, 5, TimeUnit.MILLISECONDS, logger);
+  }
+
+  @After
+  public void tearDown() {
+    watchdog.close();
+  }
+
+  @Test
+  public void reportsACommandBlockingPastTheThreshold() throws InterruptedException {
+    CommandWatchdog.Watch watch = watchdog.watch("execute", "slow", new String[] {"arg"});
+    slowCommand();
+    watch.finish();
+
+    assertEquals(1, records.size());
+    LogRecord record = records.get(0);
+    assertEquals(Level.WARNING, record.getLevel());
+    String report = record.getMessage();
+    assertTrue(report, report.startsWith("Command '/slow arg' took "));
+    assertTrue(report, report.contains(" stack samples:"));
+    assertTrue(report, report.contains(getClass().getName() + ".slowCommand("));
+  }
+
+  @Test
+  public void doesNotReportAFastCommand() {
+    watchdog.watch("execute", "fast", new String[0]).finish();
+
+    assertTrue(records.isEmpty());
+  }
+
+  private static void slowCommand() throws InterruptedException {
+    Thread.sleep(200);
+  }
+}
@@ -0,0 +1,163 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.OfflinePlayer;
+import org.junit.Test;
+
+public class OfflinePlayerCacheTest {
+
+  private final OfflinePlayer notch = player();
+  private final List<String> lookedUp = new ArrayList<>();
+  private final StandInExecutor executor = new StandInExecutor();
+  private RuntimeException failure;
+  private final OfflinePlayerCache cache =
+      new OfflinePlayerCache(
+          100,
+          50,
+          TimeUnit.MILLISECONDS,
+          name -> {
+            lookedUp.add(name);
+            if (failure != null) {
+              throw failure;
+            }
+            return name.equalsIgnoreCase("Notch") ? notch : null;
+          },
+          executor);
+
+  @Test
+  public void cachesTheFoundPlayers() {
+    CompletableFuture<OfflinePlayer> future = cache.resolveAsync("Notch");
+    assertFalse(future.isDone());
+    executor.runAll();
+    assertSame(notch, future.join());
+
+    CompletableFuture<OfflinePlayer> cached = cache.resolveAsync("notch");
+    assertTrue(cached.isDone());
+    assertSame(notch, cached.join());
+    assertSame(notch, cache.getIfCached("NOTCH"));
+    assertEquals(1, lookedUp.size());
+  }
+
+  @Test
+  public void cachesTheMissingNames() {
+    cache.resolveAsync("Herobrine");
+    executor.runAll();
+
+    CompletableFuture<OfflinePlayer> cached = cache.resolveAsync("Herobrine");
+    assertTrue(cached.isDone());
+    assertNull(cached.join());
+    assertEquals(1, lookedUp.size());
+  }
+
+  @Test
+  public void looksTheSameNameUpOnce() {
+    CompletableFuture<OfflinePlayer> first = cache.resolveAsync("Notch");
+    CompletableFuture<OfflinePlayer> second = cache.resolveAsync("NOTCH");
+    assertSame(first, second);
+    assertEquals(1, executor.size());
+
+    executor.runAll();
+    assertSame(notch, second.join());
+    assertEquals(1, lookedUp.size());
+  }
+
+  @Test
+  public void doesNotCacheAFailedLookup() {
+    failure = new IllegalStateException("the web is down");
+    CompletableFuture<OfflinePlayer> future = cache.resolveAsync("Notch");
+    executor.runAll();
+    assertTrue(future.isCompletedExceptionally());
+
+    failure = null;
+    future = cache.resolveAsync("Notch");
+    assertFalse(future.isDone());
+    executor.runAll();
+    assertSame(notch, future.join());
+    assertEquals(2, lookedUp.size());
+  }
+
+  @Test
+  public void expiresTheMissingNames() throws InterruptedException {
+    cache.resolveAsync("Herobrine");
+    executor.runAll();
+
+    Thread.sleep(100);
+    CompletableFuture<OfflinePlayer> future = cache.resolveAsync("Herobrine");
+    assertFalse(future.isDone());
+    executor.runAll();
+    assertNull(future.join());
+    assertEquals(2, lookedUp.size());
+  }
+
+  private static OfflinePlayer player() {
+    return (OfflinePlayer)
+        Proxy.newProxyInstance(
+            OfflinePlayerCacheTest.class.getClassLoader(),
+            new Class<?>[] {OfflinePlayer.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                default:
+                  return null;
+              }
+            });
+  }
+
+  /** Runs the lookups only when told to, so the test decides when they complete. */
+  private static final class StandInExecutor implements Executor {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+
+    int size() {
+      return tasks.size();
+    }
+
+    void runAll() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+* Copyright 2019 Ivan Pekov (MrIvanPlays)
+* Copyright 2019 contributors
+
+* Permission is hereby granted, free of charge, to any person obtaining a copy of
+* this software and associated documentation files (the "Software"), to deal in the
+* Software without restriction, including without limitation the rights to use, copy,
+* modify, merge, publish, distribute, sublicense, and/or sell copies of the Software,
+* and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+
+* The above copyright notice and this permission notice shall be included in all copies
+* or substantial portions of the Software.
+
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+* EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+* OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+* IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+* DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+**/
+package com.mrivanplays.icf.external;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.mrivanplays.icf.AsyncTabCompleter;
+import com.mrivanplays.icf.CommandArguments;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.bukkit.command.CommandSender;
+import org.junit.Test;
+
+public class AsyncCompletionsTest {
+
+  private final CommandSender sender =
+      (CommandSender)
+          Proxy.newProxyInstance(
+              getClass().getClassLoader(),
+              new Class<?>[] {CommandSender.class},
+              (proxy, method, args) -> method.getName().equals("hashCode") ? 0 : null);
+  private final AsyncCompletions completions = new AsyncCompletions();
+  private final StandInExecutor executor = new StandInExecutor();
+
+  @Test
+  public void deliversTheCompletedResult() {
+    AsyncTabCompleter completer =
+        (sender, label, args, executor) ->
+            CompletableFuture.supplyAsync(() -> ImmutableList.of("alpha", "alpine"), executor);
+
+    assertNull(request(completer, "al"));
+    assertEquals(1, executor.size());
+    executor.runAll();
+    assertEquals(ImmutableList.of("alpha", "alpine"), list(request(completer, "al")));
+    // narrowed down to what is typed now, while the newer request is computed
+    assertEquals(ImmutableList.of("alpha"), list(request(completer, "alph")));
+  }
+
+  @Test
+  public void doesNotRequestTheSameArgumentsAgain() {
+    List<CompletableFuture<Iterable<String>>> futures = new ArrayList<>();
+    AsyncTabCompleter completer =
+        (sender, label, args, executor) -> {
+          CompletableFuture<Iterable<String>> future = new CompletableFuture<>();
+          futures.add(future);
+          return future;
+        };
+
+    request(completer, "a");
+    request(completer, "a");
+    assertEquals(1, futures.size());
+  }
+
+  @Test
+  public void cancelsTheSupersededRequest() {
+    List<CompletableFuture<Iterable<String>>> futures = new ArrayList<>();
+    AsyncTabCompleter completer =
+        (sender, label, args, executor) -> {
+          CompletableFuture<Iterable<String>> future = new CompletableFuture<>();
+          futures.add(future);
+          return future;
+        };
+
+    request(completer, "a");
+    request(completer, "b");
+    assertEquals(2, futures.size());
+    assertTrue(futures.get(0).isCancelled());
+    assertFalse(futures.get(1).isCancelled());
+
+    futures.get(1).complete(ImmutableList.of("bravo"));
+    assertEquals(ImmutableList.of("bravo"), list(request(completer, "b")));
+  }
+
+  @Test
+  public void discardsAResultCompletingAfterANewerOne() {
+    List<CompletableFuture<Iterable<String>>> futures = new ArrayList<>();
+    AsyncTabCompleter completer =
+        (sender, label, args, executor) -> {
+          // ignores being cancelled, so it still completes after it got superseded
+          CompletableFuture<Iterable<String>> future =
+              new CompletableFuture<Iterable<String>>() {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                  return false;
+                }
+              };
+          futures.add(future);
+          return future;
+        };
+
+    request(completer, "a");
+    request(completer, "b");
+    futures.get(1).complete(ImmutableList.of("bravo"));
+    futures.get(0).complete(ImmutableList.of("alpha"));
+
+    // the older result never replaced the newer one, so there's nothing starting with "a"
+    assertEquals(ImmutableList.of("bravo"), list(request(completer, "b")));
+    assertEquals(ImmutableList.of(), list(request(completer, "a")));
+  }
+
+  @Test
+  public void keepsTheLastResultWhenARequestFails() {
+    List<CompletableFuture<Iterable<String>>> futures = new ArrayList<>();
+    AsyncTabCompleter completer =
+        (sender, label, args, executor) -> {
+          CompletableFuture<Iterable<String>> future = new CompletableFuture<>();
+          futures.add(future);
+          return future;
+        };
+
+    request(completer, "a");
+    futures.get(0).complete(ImmutableList.of("alpha", "ask"));
+    request(completer, "al");
+    futures.get(1).completeExceptionally(new IllegalStateException("database is down"));
+
+    assertEquals(ImmutableList.of("alpha"), list(request(completer, "al")));
+  }
+
+  private Iterable<String> request(AsyncTabCompleter completer, String... args) {
+    return completions.request(
+        completer, sender, "test", args, new CommandArguments(args), executor);
+  }
+
+  private static List<String> list(Iterable<String> completions) {
+    return completions == null ? null : Lists.newArrayList(completions);
+  }
+
+  /** Runs the tasks only when told to, so the test decides when the completions complete. */
+  private static final class StandInExecutor implements Executor {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+
+    int size() {
+      return tasks.size();
+    }
+
+    void runAll() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+  }
+}